@@ -0,0 +1,369 @@
+package gui;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import level.Level;
+import level.LevelSolution;
+import level.PackSolver;
+import level.SolutionStore;
+import level.SolverProgress;
+import level.SolverSettings;
+
+/**
+ * Solves level packs from the command line, without a window or any
+ * textures, so solutions can be regenerated on machines with no display.
+ * Every level of each pack is solved, the pack's solution file is rewritten
+ * with the new solutions, and statistics for each level are written as CSV
+ * and/or JSON. Run with no arguments for the options.
+ * 
+ * @author Austin Tripp and Sherman Ying
+ * @version October 18, 2026
+ */
+public class BatchSolver
+{
+	// The names of the search strategies, by their SolverSettings codes.
+	private static final String[] STRATEGIES = { "bfs", "astar", "ida",
+			"external", "algebraic" };
+
+	// The names of the results of solving a level, by their PackSolver codes.
+	private static final String[] STATUSES = { "unsolved", "solved",
+			"unsolvable", "timedout", "failed" };
+
+	// Exit codes.
+	private static final int EXIT_OK = 0;
+	private static final int EXIT_UNSOLVED = 1;
+	private static final int EXIT_USAGE = 2;
+
+	// How the levels are solved.
+	private final SolverSettings settings;
+	private int threads;
+	private long timeout;
+
+	// Where solutions and statistics are written, or null for no statistics.
+	private File solutionDirectory;
+	private File csvFile;
+	private File jsonFile;
+
+	// One row of statistics for each level solved.
+	private final ArrayList<String[]> rows;
+
+	/**
+	 * Constructs a BatchSolver with the default settings: one level at a time
+	 * with no time limit, writing solutions to data/solutions.
+	 */
+	public BatchSolver()
+	{
+		settings = new SolverSettings();
+		threads = 1;
+		timeout = 0;
+		solutionDirectory = new File("data", "solutions");
+		csvFile = null;
+		jsonFile = null;
+		rows = new ArrayList<String[]>();
+	}
+
+	/**
+	 * Solves the packs given on the command line.
+	 * 
+	 * @param args the options, followed by the .pck files to solve.
+	 */
+	public static void main(String[] args)
+	{
+		System.setProperty("java.awt.headless", "true");
+		BatchSolver solver = new BatchSolver();
+		ArrayList<File> packs = new ArrayList<File>();
+		try {
+			for (int arg = 0; arg < args.length; arg++) {
+				if (!args[arg].startsWith("-"))
+					packs.add(new File(args[arg]));
+				else if (arg + 1 < args.length)
+					solver.setOption(args[arg], args[++arg]);
+				else
+					throw new IllegalArgumentException("Missing value for "
+							+ args[arg] + ".");
+			}
+			if (packs.isEmpty())
+				throw new IllegalArgumentException("No packs to solve.");
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			printUsage();
+			System.exit(EXIT_USAGE);
+		}
+
+		boolean allSolved = true;
+		for (File pack : packs)
+			try {
+				if (!solver.solvePack(pack))
+					allSolved = false;
+			} catch (InterruptedException e) {
+				System.exit(EXIT_UNSOLVED);
+			} catch (Exception e) {
+				System.err.println("Could not solve " + pack + ": " + e);
+				allSolved = false;
+			}
+		try {
+			solver.writeStatistics();
+		} catch (IOException e) {
+			System.err.println("Could not write the statistics: " + e);
+			allSolved = false;
+		}
+		System.exit(allSolved ? EXIT_OK : EXIT_UNSOLVED);
+	}
+
+	/**
+	 * Prints the command line options.
+	 */
+	private static void printUsage()
+	{
+		System.err.println("Usage: java -cp <classpath> gui.BatchSolver "
+				+ "[options] <pack.pck>...");
+		System.err.println("  -strategy <bfs|astar|ida|external|algebraic>"
+				+ "  search strategy (bfs)");
+		System.err.println("  -threads <n>        levels solved at once (1)");
+		System.err.println("  -searchThreads <n>  threads for each bfs "
+				+ "search (1)");
+		System.err.println("  -timeout <ms>       time limit for each level, "
+				+ "0 for none (0)");
+		System.err.println("  -memory <MB>        memory limit for each "
+				+ "level's visited states");
+		System.err.println("  -solutions <dir>    directory to write .soln "
+				+ "files to (data/solutions)");
+		System.err.println("  -csv <file>         write statistics as CSV");
+		System.err.println("  -json <file>        write statistics as JSON");
+	}
+
+	/**
+	 * Escapes a string for use in a JSON document.
+	 * 
+	 * @param text the string to escape.
+	 * @return the string as a quoted JSON string.
+	 */
+	private static String quoteJson(String text)
+	{
+		StringBuilder quoted = new StringBuilder("\"");
+		for (char ch : text.toCharArray()) {
+			if (ch == '"' || ch == '\\')
+				quoted.append('\\').append(ch);
+			else if (ch < ' ')
+				quoted.append(String.format("\\u%04x", (int) ch));
+			else
+				quoted.append(ch);
+		}
+		return quoted.append('"').toString();
+	}
+
+	/**
+	 * Escapes a string for use as a CSV field.
+	 * 
+	 * @param text the string to escape.
+	 * @return the string, quoted if it holds a comma, quote or line break.
+	 */
+	private static String quoteCsv(String text)
+	{
+		if (text.indexOf(',') < 0 && text.indexOf('"') < 0
+				&& text.indexOf('\n') < 0 && text.indexOf('\r') < 0)
+			return text;
+		return "\"" + text.replace("\"", "\"\"") + "\"";
+	}
+
+	/**
+	 * Reads a value of an option that must be a whole number.
+	 * 
+	 * @param option the name of the option.
+	 * @param value the value given.
+	 * @param smallest the smallest value allowed.
+	 * @return the value read.
+	 * @throws IllegalArgumentException if the value is not a whole number of
+	 *             at least the smallest value.
+	 */
+	private static long readNumber(String option, String value, long smallest)
+	{
+		try {
+			long number = Long.parseLong(value);
+			if (number >= smallest)
+				return number;
+		} catch (NumberFormatException e) {
+		}
+		throw new IllegalArgumentException(option + " must be a whole number "
+				+ "of at least " + smallest + ".");
+	}
+
+	/**
+	 * Sets one of the command line options.
+	 * 
+	 * @param option the name of the option, starting with a dash.
+	 * @param value the value of the option.
+	 * @throws IllegalArgumentException if the option or its value is not
+	 *             valid.
+	 */
+	public void setOption(String option, String value)
+	{
+		if (option.equals("-strategy")) {
+			int strategy = Arrays.asList(STRATEGIES).indexOf(value);
+			if (strategy < 0)
+				throw new IllegalArgumentException("Unknown strategy "
+						+ value + ".");
+			settings.setStrategy(strategy);
+		} else if (option.equals("-threads"))
+			threads = (int) readNumber(option, value, 1);
+		else if (option.equals("-searchThreads"))
+			settings.setThreads((int) readNumber(option, value, 1));
+		else if (option.equals("-timeout"))
+			timeout = readNumber(option, value, 0);
+		else if (option.equals("-memory"))
+			settings.setMemoryLimit(readNumber(option, value, 1) << 20);
+		else if (option.equals("-solutions"))
+			solutionDirectory = new File(value);
+		else if (option.equals("-csv"))
+			csvFile = new File(value);
+		else if (option.equals("-json"))
+			jsonFile = new File(value);
+		else
+			throw new IllegalArgumentException("Unknown option " + option
+					+ ".");
+	}
+
+	/**
+	 * Solves every level in a pack, rewriting the pack's solution file and
+	 * keeping a row of statistics for each level. Levels that are not solved
+	 * keep the solution they had before, if any.
+	 * 
+	 * @param packFile the .pck file of the pack.
+	 * @return true if every level was solved or shown to be unsolvable,
+	 *         otherwise false.
+	 * @throws IOException if the pack cannot be read or its solutions cannot
+	 *             be written.
+	 * @throws ClassNotFoundException if the file does not hold a pack.
+	 * @throws InterruptedException if the thread is interrupted while
+	 *             solving.
+	 */
+	public boolean solvePack(File packFile) throws IOException,
+			ClassNotFoundException, InterruptedException
+	{
+		String packName = packFile.getName();
+		if (packName.endsWith(".pck"))
+			packName = packName.substring(0, packName.length() - 4);
+		Level[] levelPack;
+		ObjectInputStream in = new ObjectInputStream(new FileInputStream(
+				packFile));
+		try {
+			levelPack = (Level[]) in.readObject();
+		} finally {
+			in.close();
+		}
+
+		PackSolver packSolver = new PackSolver(levelPack, settings);
+		packSolver.solve(threads, timeout);
+
+		// Merge the new solutions into the existing ones.
+		solutionDirectory.mkdirs();
+		File solutionFile = new File(solutionDirectory, packName + ".soln");
+		LevelSolution[] solutions;
+		try {
+			solutions = Arrays.copyOf(
+					SolutionStore.readSolutions(solutionFile),
+					levelPack.length);
+		} catch (Exception e) {
+			solutions = new LevelSolution[levelPack.length];
+		}
+		boolean allSolved = true;
+		for (int level = 0; level < levelPack.length; level++) {
+			int status = packSolver.getStatus(level);
+			if (status == PackSolver.SOLVED)
+				solutions[level] = packSolver.getSolution(level);
+			else if (status != PackSolver.UNSOLVABLE)
+				allSolved = false;
+			addRow(packName, level, levelPack[level], packSolver);
+		}
+		PackSolver.writeSolutions(solutions, solutionFile);
+		new SolutionStore(new File(solutionDirectory, "store"))
+				.storeAll(packSolver.getSolutions());
+		return allSolved;
+	}
+
+	/**
+	 * Keeps the statistics of a level and reports them on the console.
+	 * 
+	 * @param packName the name of the pack.
+	 * @param level the index of the level in the pack.
+	 * @param levelData the level.
+	 * @param packSolver the solver that solved the pack.
+	 */
+	private void addRow(String packName, int level, Level levelData,
+			PackSolver packSolver)
+	{
+		LevelSolution solution = packSolver.getSolution(level);
+		SolverProgress progress = packSolver.getProgress(level);
+		String[] row = { packName, Integer.toString(level + 1),
+				levelData.toString(), STATUSES[packSolver.getStatus(level)],
+				solution == null ? "" : Integer.toString(solution
+						.getNoOfMoves()),
+				Long.toString(progress.getStatesExpanded()),
+				Long.toString(packSolver.getTime(level)),
+				Long.toString(progress.getMemoryUsage()) };
+		rows.add(row);
+		System.out.println(packName + " #" + row[1] + " \"" + row[2] + "\": "
+				+ row[3] + (solution == null ? "" : " in " + row[4]
+						+ " moves") + ", " + row[5] + " states, " + row[6]
+				+ " ms");
+	}
+
+	/**
+	 * Writes the statistics of every level solved to the CSV and JSON files
+	 * asked for.
+	 * 
+	 * @throws IOException if a file cannot be written.
+	 */
+	public void writeStatistics() throws IOException
+	{
+		String[] columns = { "pack", "level", "name", "status", "moves",
+				"states", "timeMs", "peakMemoryBytes" };
+		if (csvFile != null) {
+			PrintWriter out = new PrintWriter(new FileWriter(csvFile));
+			try {
+				for (int col = 0; col < columns.length; col++)
+					out.print((col == 0 ? "" : ",") + columns[col]);
+				out.println();
+				for (String[] row : rows) {
+					for (int col = 0; col < row.length; col++)
+						out.print((col == 0 ? "" : ",") + quoteCsv(row[col]));
+					out.println();
+				}
+			} finally {
+				out.close();
+			}
+		}
+		if (jsonFile != null) {
+			PrintWriter out = new PrintWriter(new FileWriter(jsonFile));
+			try {
+				out.println("[");
+				for (int index = 0; index < rows.size(); index++) {
+					String[] row = rows.get(index);
+					out.print("  {");
+					for (int col = 0; col < row.length; col++) {
+						// Text columns are quoted and numbers are not, with
+						// a missing number written as null.
+						String value = row[col];
+						if (col == 0 || col == 2 || col == 3)
+							value = quoteJson(value);
+						else if (value.isEmpty())
+							value = "null";
+						out.print((col == 0 ? "" : ", ")
+								+ quoteJson(columns[col]) + ": " + value);
+					}
+					out.println(index < rows.size() - 1 ? "}," : "}");
+				}
+				out.println("]");
+			} finally {
+				out.close();
+			}
+		}
+	}
+}
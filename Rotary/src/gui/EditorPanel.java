@@ -26,8 +26,11 @@ import level.FinishTile;
 import level.KeyTile;
 import level.LauncherTile;
 import level.Level;
+import level.LevelAnalysis;
 import level.LockedTile;
+import level.PackSolver;
 import level.PaintTile;
+import level.SolutionStore;
 import level.StartTile;
 import level.StaticTile;
 import level.Tile;
@@ -423,6 +426,9 @@ public class EditorPanel extends JPanel implements MouseListener,
 	 * 
 	 * 3) If there is a locked tile, there is a key tile and vice versa.
 	 * 
+	 * 4) An end tile could be reached from the start tile, judged by a quick
+	 * analysis rather than by solving the level.
+	 * 
 	 * @return an ArrayList containing all the errors contained in this level.
 	 */
 	private ArrayList<String> getLevelErrors()
@@ -462,6 +468,11 @@ public class EditorPanel extends JPanel implements MouseListener,
 			errors.add("There must be at least one Locked Tile for a Key Tile to be present on the map");
 		if (numKeyTile == 0 && numLockedTile > 0)
 			errors.add("There must be at least one key tile for a Locked Tile to be present on the map");
+
+		// Only analyse levels that are otherwise valid.
+		if (errors.isEmpty()
+				&& !new LevelAnalysis(new Level(grid, "")).isFinishReachable())
+			errors.add("No End Tile can ever be reached from the Start Tile!");
 		return errors;
 	}
 
@@ -885,7 +896,8 @@ public class EditorPanel extends JPanel implements MouseListener,
 	}
 
 	/**
-	 * Publishes the current level pack and deletes the existing solution file.
+	 * Publishes the current level pack, keeping the solutions of any levels
+	 * that were solved before, in this pack or any other.
 	 */
 	public void publishLevelPack()
 	{
@@ -924,11 +936,6 @@ public class EditorPanel extends JPanel implements MouseListener,
 
 			// Put this level in the array.
 			pack[i] = new Level(grid, levelNames.get(i));
-
-			// Delete the solution in case the levels were modified.
-			File solution = new File("data\\solutions\\" + packName + ".soln");
-			if (solution.exists())
-				solution.delete();
 		}
 
 		// Now that each level is without errors, write them to a file.
@@ -944,6 +951,21 @@ public class EditorPanel extends JPanel implements MouseListener,
 			return;
 		}
 
+		// Store the pack's old solutions by level, then rebuild the solution
+		// file from the stored solutions of the new levels.
+		File solution = new File("data\\solutions\\" + packName + ".soln");
+		SolutionStore store = new SolutionStore();
+		try {
+			store.storeAll(SolutionStore.readSolutions(solution));
+		} catch (Exception e) {
+			// There were no old solutions to keep.
+		}
+		try {
+			PackSolver.writeSolutions(store.findAll(pack), solution);
+		} catch (Exception e) {
+			solution.delete();
+		}
+
 		// Return to the main menu.
 		parent.showMenuPanel();
 	}
@@ -1,5 +1,6 @@
 package gui;
 
+import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Point;
@@ -56,6 +57,9 @@ public class GamePanel extends JPanel implements MouseListener, KeyListener,
 	private static final int VIEW_X = 14;
 	private static final int VIEW_Y = 14;
 
+	// The colour laid over tiles the player can walk to.
+	private static final Color REACHABLE_COLOUR = new Color(255, 255, 255, 40);
+
 	// Loaded images.
 	private static BufferedImage borderFrame;
 	private static BufferedImage selectorBox;
@@ -560,6 +564,21 @@ public class GamePanel extends JPanel implements MouseListener, KeyListener,
 		g2D.drawImage(background, 0, 0, null);
 		currentLevel.draw(g2D, viewX, viewY);
 
+		// Highlight every tile in view the player can walk to.
+		g2D.setColor(REACHABLE_COLOUR);
+		int firstRow = Math.max(viewY / Tile.TILE_WIDTH, 0);
+		int firstCol = Math.max(viewX / Tile.TILE_WIDTH, 0);
+		int lastRow = Math.min((viewY + VIEW_H) / Tile.TILE_WIDTH,
+				currentLevel.getHeight() - 1);
+		int lastCol = Math.min((viewX + VIEW_W) / Tile.TILE_WIDTH,
+				currentLevel.getWidth() - 1);
+		for (int row = firstRow; row <= lastRow; row++)
+			for (int col = firstCol; col <= lastCol; col++)
+				if (currentLevel.canWalkTo(row, col))
+					g2D.fillRect(col * Tile.TILE_WIDTH - viewX, row
+							* Tile.TILE_WIDTH - viewY, Tile.TILE_WIDTH,
+							Tile.TILE_WIDTH);
+
 		// Draw a selection box around the selected tile.
 		int offsetX = -(viewX % Tile.TILE_WIDTH);
 		int offsetY = -(viewY % Tile.TILE_WIDTH);
@@ -652,16 +671,22 @@ public class GamePanel extends JPanel implements MouseListener, KeyListener,
 			return;
 		}
 
-		// Otherwise prompt the user to build one.
+		// Otherwise prompt the user to build one, or solutions for the whole
+		// pack.
+		String[] options = { "This level", "Whole pack", "Cancel" };
 		int choice = JOptionPane
-				.showConfirmDialog(
+				.showOptionDialog(
 						this,
 						"No solution exists for this level. "
 								+ "Would you like to generate one?\n(This could take some time)",
-						"Solution not found", JOptionPane.YES_NO_OPTION);
+						"Solution not found", JOptionPane.YES_NO_CANCEL_OPTION,
+						JOptionPane.QUESTION_MESSAGE, null, options, options[0]);
 		if (choice == JOptionPane.YES_OPTION) {
 			solnPanel.generateSolution(levelIndex);
 			parent.showSolnPanel();
+		} else if (choice == JOptionPane.NO_OPTION) {
+			solnPanel.generateAllSolutions(levelIndex);
+			parent.showSolnPanel();
 		}
 	}
 }
@@ -4,6 +4,8 @@ import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Point;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionListener;
@@ -17,11 +19,13 @@ import java.util.LinkedList;
 
 import javax.imageio.ImageIO;
 import javax.swing.JPanel;
+import javax.swing.Timer;
 
 import level.EmptyTile;
 import level.Level;
 import level.LevelSolution;
 import level.SolutionMaker;
+import level.SolverProgress;
 import level.Tile;
 
 /**
@@ -30,8 +34,8 @@ import level.Tile;
  * @author Austin Tripp and Sherman Ying
  * @version June 15th 2013
  */
-public class SolutionPanel extends JPanel implements MouseListener,
-		MouseMotionListener
+public class SolutionPanel extends JPanel implements ActionListener,
+		MouseListener, MouseMotionListener
 {
 	private static final long serialVersionUID = 1234567890;
 
@@ -50,6 +54,15 @@ public class SolutionPanel extends JPanel implements MouseListener,
 	private static final int VIEW_Y = 14;
 	private static final int MOVE_X = 830;
 	private static final int MOVE_Y = 70;
+	private static final int STATS_X = 14;
+	private static final int STATS_Y = 434;
+	private static final int STATS_LINE = 16;
+
+	// Milliseconds between updates of the solver's progress.
+	private static final int PROGRESS_DELAY = 250;
+
+	// The most milliseconds spent on each level when solving a whole pack.
+	private static final long LEVEL_TIMEOUT = 60000;
 
 	// Loaded images.
 	private static BufferedImage borderFrame;
@@ -114,6 +127,7 @@ public class SolutionPanel extends JPanel implements MouseListener,
 	// Other window elements.
 	private RotaryFrame parent;
 	private SolutionMaker solver;
+	private Timer progressTimer;
 
 	// Level pack data.
 	private LevelSolution[] solutionPack;
@@ -156,6 +170,7 @@ public class SolutionPanel extends JPanel implements MouseListener,
 		viewPos = null;
 		clickPos = null;
 		solver = new SolutionMaker(this);
+		progressTimer = new Timer(PROGRESS_DELAY, this);
 		parent = frame;
 		selectPlayer();
 		centreView();
@@ -171,6 +186,18 @@ public class SolutionPanel extends JPanel implements MouseListener,
 		}
 	}
 
+	/**
+	 * Repaints the solver's progress while a solution is being generated.
+	 * 
+	 * @param evt the progress timer firing.
+	 */
+	public void actionPerformed(ActionEvent evt)
+	{
+		if (!solver.isSolving())
+			progressTimer.stop();
+		repaint();
+	}
+
 	/**
 	 * Cancel the generation of the current solutions.
 	 */
@@ -206,6 +233,23 @@ public class SolutionPanel extends JPanel implements MouseListener,
 			parent.setTitle("Rotary - Attempting to Solve");
 	}
 
+	/**
+	 * Generates solutions to every level in the current pack, showing the
+	 * progress of the given level.
+	 * 
+	 * @param levelNo the index of the level to show once done Precondition:
+	 *            levelNo is a valid array index.
+	 */
+	public void generateAllSolutions(int levelNo)
+	{
+		currentSolution = null;
+		repaint();
+		solver.solveAll(levelNo, Runtime.getRuntime().availableProcessors(),
+				LEVEL_TIMEOUT);
+		levelIndex = levelNo;
+		progressTimer.start();
+	}
+
 	/**
 	 * Generates a solution to the given level.
 	 * 
@@ -218,6 +262,7 @@ public class SolutionPanel extends JPanel implements MouseListener,
 		repaint();
 		solver.solve(levelNo);
 		levelIndex = levelNo;
+		progressTimer.start();
 	}
 
 	/**
@@ -374,6 +419,30 @@ public class SolutionPanel extends JPanel implements MouseListener,
 		repaint();
 	}
 
+	/**
+	 * Draws the progress of the solver over the level view.
+	 * 
+	 * @param g2D the graphics context of the level view.
+	 */
+	private void drawProgress(Graphics2D g2D)
+	{
+		SolverProgress progress = solver.getProgress();
+		String[] lines = {
+				String.format("Depth: %d", progress.getDepth()),
+				String.format("Frontier: %,d states",
+						progress.getFrontierSize()),
+				String.format("Expanded: %,d states",
+						progress.getStatesExpanded()),
+				String.format("Speed: %,d states/s",
+						progress.getStatesPerSecond()),
+				String.format("Memory: %.1f MB (%d bytes/state)",
+						progress.getMemoryUsage() / 1048576.0,
+						progress.getBytesPerState()) };
+		g2D.setColor(Color.WHITE);
+		for (int line = 0; line < lines.length; line++)
+			g2D.drawString(lines[line], STATS_X, STATS_Y + line * STATS_LINE);
+	}
+
 	/**
 	 * Repaints the screen.
 	 * 
@@ -401,6 +470,7 @@ public class SolutionPanel extends JPanel implements MouseListener,
 		}
 		if (solver.isSolving()) {
 			g2D.drawImage(generateSolution, 0, 0, null);
+			drawProgress(g2D);
 		} else if (!solver.isPossible()) {
 			g2D.drawImage(noSolution, 0, 0, null);
 		}
@@ -0,0 +1,113 @@
+package level;
+
+import java.util.Arrays;
+
+/**
+ * Sorts the cells of a level into groups, such as the cells of each colour,
+ * so the cells in a group can be found without searching the whole level.
+ * The cells of a group are kept in no particular order.
+ * 
+ * @author Austin Tripp and Sherman Ying
+ * @version October 18, 2026
+ */
+class CellIndex
+{
+	// The cells in each group, and how many there are.
+	private final int[][] groups;
+	private final int[] sizes;
+
+	/**
+	 * Constructs an index with every group empty.
+	 * 
+	 * @param noOfGroups the number of groups.
+	 */
+	CellIndex(int noOfGroups)
+	{
+		groups = new int[noOfGroups][];
+		sizes = new int[noOfGroups];
+		Arrays.fill(groups, new int[0]);
+	}
+
+	/**
+	 * Constructs a copy of the given index.
+	 * 
+	 * @param clone the index to duplicate.
+	 */
+	CellIndex(CellIndex clone)
+	{
+		groups = new int[clone.groups.length][];
+		sizes = clone.sizes.clone();
+		for (int group = 0; group < groups.length; group++)
+			groups[group] = Arrays.copyOf(clone.groups[group], sizes[group]);
+	}
+
+	/**
+	 * Adds a cell to a group.
+	 * 
+	 * @param group the group to add to.
+	 * @param cell the cell to add.
+	 */
+	void add(int group, int cell)
+	{
+		int[] cells = groups[group];
+		if (sizes[group] == cells.length)
+			groups[group] = cells = Arrays.copyOf(cells, Math.max(4,
+					cells.length * 2));
+		cells[sizes[group]++] = cell;
+	}
+
+	/**
+	 * Gives a cell in a group.
+	 * 
+	 * @param group the group of the cell.
+	 * @param index the index of the cell in the group Precondition: index <
+	 *            size(group).
+	 * @return the cell.
+	 */
+	int get(int group, int index)
+	{
+		return groups[group][index];
+	}
+
+	/**
+	 * Moves every cell in one group to another.
+	 * 
+	 * @param from the group to empty.
+	 * @param to the group to move the cells to.
+	 */
+	void moveAll(int from, int to)
+	{
+		if (from == to)
+			return;
+		for (int index = 0; index < sizes[from]; index++)
+			add(to, groups[from][index]);
+		sizes[from] = 0;
+	}
+
+	/**
+	 * Removes a cell from a group, moving the last cell of the group into its
+	 * place. This takes time proportional to the size of the group.
+	 * 
+	 * @param group the group of the cell.
+	 * @param cell the cell to remove Precondition: the cell is in the group.
+	 */
+	void remove(int group, int cell)
+	{
+		int[] cells = groups[group];
+		int index = 0;
+		while (cells[index] != cell)
+			index++;
+		cells[index] = cells[--sizes[group]];
+	}
+
+	/**
+	 * Gives the number of cells in a group.
+	 * 
+	 * @param group the group to check.
+	 * @return the number of cells in the group.
+	 */
+	int size(int group)
+	{
+		return sizes[group];
+	}
+}
@@ -0,0 +1,256 @@
+package level;
+
+import java.util.Arrays;
+
+/**
+ * Sorts the cells of a level into components: groups of cells the player can
+ * walk between without rotating or activating anything. Each component has a
+ * number, and the number of FinishTiles in each is kept, so checking whether
+ * the player can walk to a FinishTile takes constant time. Only rotations
+ * change which cells are connected, and after one only the components that
+ * held the turned tiles or their neighbours are taken apart and found again,
+ * so keeping the components up to date costs time in proportion to the size
+ * of those components rather than the size of the level. Empty cells are in
+ * no component, and the numbers are kept in blocks of 64 cells that are made
+ * when first needed, so mostly empty levels stay small.
+ * 
+ * @author Austin Tripp and Sherman Ying
+ * @version October 18, 2026
+ */
+class Connectivity
+{
+	// Cells in a block of component numbers.
+	private static final int BLOCK_BITS = 6;
+	private static final int BLOCK_CELLS = 1 << BLOCK_BITS;
+
+	// Level dimensions.
+	private final int height;
+	private final int width;
+
+	// The component of each cell, or 0 for none, in blocks of cells.
+	private final int[][] components;
+
+	// The number of FinishTiles in each component, the numbers given out so
+	// far and the numbers free to be given out again.
+	private int[] finishes;
+	private int noOfComponents;
+	private int[] freeComponents;
+	private int noOfFreeComponents;
+
+	// Cells taken out of their components, and cells waiting to be walked
+	// from, reused by every update.
+	private int[] removed;
+	private int[] queue;
+
+	/**
+	 * Constructs a Connectivity holding the components of the given level.
+	 * 
+	 * @param level the level to sort the cells of.
+	 * @param height the number of rows in the level.
+	 * @param width the number of columns in the level.
+	 */
+	Connectivity(Level level, int height, int width)
+	{
+		this.height = height;
+		this.width = width;
+		components = new int[(height * width >>> BLOCK_BITS) + 1][];
+		finishes = new int[16];
+		noOfComponents = 1;
+		freeComponents = new int[16];
+		noOfFreeComponents = 0;
+		removed = new int[16];
+		queue = new int[16];
+		for (int cell = 0; cell < height * width; cell++)
+			if (get(cell) == 0 && level.isEnterable(cell))
+				fill(level, cell);
+	}
+
+	/**
+	 * Constructs a copy of the given Connectivity.
+	 * 
+	 * @param clone the Connectivity to duplicate.
+	 */
+	Connectivity(Connectivity clone)
+	{
+		height = clone.height;
+		width = clone.width;
+		components = new int[clone.components.length][];
+		for (int block = 0; block < components.length; block++)
+			if (clone.components[block] != null)
+				components[block] = clone.components[block].clone();
+		finishes = clone.finishes.clone();
+		noOfComponents = clone.noOfComponents;
+		freeComponents = clone.freeComponents.clone();
+		noOfFreeComponents = clone.noOfFreeComponents;
+		removed = new int[16];
+		queue = new int[16];
+	}
+
+	/**
+	 * Adds a value to the end of an array, making the array bigger if it is
+	 * full.
+	 * 
+	 * @param array the array to add to.
+	 * @param size the number of values in the array.
+	 * @param value the value to add.
+	 * @return the array, or a bigger copy of it if it was full.
+	 */
+	private static int[] add(int[] array, int size, int value)
+	{
+		if (size == array.length)
+			array = Arrays.copyOf(array, size * 2);
+		array[size] = value;
+		return array;
+	}
+
+	/**
+	 * Walks out from a cell that is in no component and puts every cell
+	 * connected to it in a new component.
+	 * 
+	 * @param level the level holding the cells.
+	 * @param start the cell to walk out from.
+	 */
+	private void fill(Level level, int start)
+	{
+		int component;
+		if (noOfFreeComponents > 0)
+			component = freeComponents[--noOfFreeComponents];
+		else {
+			component = noOfComponents++;
+			if (component == finishes.length)
+				finishes = Arrays.copyOf(finishes, component * 2);
+		}
+		set(start, component);
+		queue[0] = start;
+		int size = 1;
+		int noOfFinishes = 0;
+		for (int index = 0; index < size; index++) {
+			int cell = queue[index];
+			if (level.isFinish(cell))
+				noOfFinishes++;
+			for (int direction = Tile.UP; direction <= Tile.LEFT; direction++) {
+				int next = level.getWalkableNeighbour(cell, direction);
+				if (next >= 0 && get(next) == 0) {
+					set(next, component);
+					queue = add(queue, size++, next);
+				}
+			}
+		}
+		finishes[component] = noOfFinishes;
+	}
+
+	/**
+	 * Gives the component of a cell.
+	 * 
+	 * @param cell the cell to look up.
+	 * @return the number of the cell's component, or 0 if it is in none.
+	 */
+	int get(int cell)
+	{
+		int[] block = components[cell >>> BLOCK_BITS];
+		return block == null ? 0 : block[cell & BLOCK_CELLS - 1];
+	}
+
+	/**
+	 * Checks whether a component holds a FinishTile.
+	 * 
+	 * @param component the number of the component.
+	 * @return true if the component holds a FinishTile, otherwise false.
+	 */
+	boolean hasFinish(int component)
+	{
+		return component != 0 && finishes[component] > 0;
+	}
+
+	/**
+	 * Takes apart the component holding a cell, adding its cells to the list
+	 * of removed cells. Does nothing if the cell is in no component.
+	 * 
+	 * @param start the cell whose component is taken apart.
+	 * @param noOfRemoved the number of cells removed so far.
+	 * @return the number of cells removed, including these ones.
+	 */
+	private int remove(int start, int noOfRemoved)
+	{
+		int component = get(start);
+		if (component == 0)
+			return noOfRemoved;
+		freeComponents = add(freeComponents, noOfFreeComponents++, component);
+
+		// Every cell of a component can be walked to through neighbours in
+		// the same component, whether or not they are still connected.
+		set(start, 0);
+		removed = add(removed, noOfRemoved, start);
+		int end = noOfRemoved + 1;
+		for (int index = noOfRemoved; index < end; index++) {
+			int cell = removed[index];
+			int row = cell / width;
+			int col = cell % width;
+			if (row > 0 && get(cell - width) == component) {
+				set(cell - width, 0);
+				removed = add(removed, end++, cell - width);
+			}
+			if (col + 1 < width && get(cell + 1) == component) {
+				set(cell + 1, 0);
+				removed = add(removed, end++, cell + 1);
+			}
+			if (row + 1 < height && get(cell + width) == component) {
+				set(cell + width, 0);
+				removed = add(removed, end++, cell + width);
+			}
+			if (col > 0 && get(cell - 1) == component) {
+				set(cell - 1, 0);
+				removed = add(removed, end++, cell - 1);
+			}
+		}
+		return end;
+	}
+
+	/**
+	 * Changes the component of a cell.
+	 * 
+	 * @param cell the cell to change.
+	 * @param component the number of its new component, or 0 for none.
+	 */
+	private void set(int cell, int component)
+	{
+		int[] block = components[cell >>> BLOCK_BITS];
+		if (block == null) {
+			if (component == 0)
+				return;
+			block = new int[BLOCK_CELLS];
+			components[cell >>> BLOCK_BITS] = block;
+		}
+		block[cell & BLOCK_CELLS - 1] = component;
+	}
+
+	/**
+	 * Finds the components again after the tiles within one cell of the given
+	 * position (in all 8 directions) turn. Every component holding one of
+	 * those tiles, or a tile next to one of them, is taken apart, and its
+	 * cells are sorted into new components. No other component can change.
+	 * 
+	 * @param level the level, after the tiles have turned.
+	 * @param row the row of the centre of the tiles that turned.
+	 * @param col the column of the centre of the tiles that turned.
+	 */
+	void update(Level level, int row, int col)
+	{
+		// The tiles that turned and their neighbours fill a 5 by 5 square
+		// without its corners.
+		int noOfRemoved = 0;
+		for (int rowOffset = -2; rowOffset <= 2; rowOffset++)
+			for (int colOffset = -2; colOffset <= 2; colOffset++) {
+				int nextRow = row + rowOffset;
+				int nextCol = col + colOffset;
+				if (Math.abs(rowOffset) + Math.abs(colOffset) < 4
+						&& nextRow >= 0 && nextRow < height && nextCol >= 0
+						&& nextCol < width)
+					noOfRemoved = remove(nextRow * width + nextCol,
+							noOfRemoved);
+			}
+		for (int index = 0; index < noOfRemoved; index++)
+			if (get(removed[index]) == 0 && level.isEnterable(removed[index]))
+				fill(level, removed[index]);
+	}
+}
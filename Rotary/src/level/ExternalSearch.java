@@ -0,0 +1,251 @@
+package level;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedList;
+
+/**
+ * A breadth first search that keeps its layers and visited states on disk,
+ * for levels with more states than fit in memory. States generated from one
+ * layer are split into partitions by their fingerprints. Each partition is
+ * then checked against the visited states of the same partition, which is
+ * the only part of the visited states held in memory at once.
+ * 
+ * @author Austin Tripp and Sherman Ying
+ * @version October 18, 2026
+ */
+class ExternalSearch
+{
+	// The number of partitions states are split into, as a power of two.
+	private static final int PARTITION_BITS = 6;
+	private static final int PARTITIONS = 1 << PARTITION_BITS;
+
+	// The level being solved.
+	private final PackedLevel packedLevel;
+	private final int stateWords;
+
+	// Memory settings for checking a partition.
+	private final long memoryLimit;
+	private final boolean offHeap;
+
+	// The progress to update while searching.
+	private final SolverProgress progress;
+
+	// The board reused for finding the cells the player can reach.
+	private final RegionBoard region;
+
+	// Files holding each layer, and the visited states of each partition.
+	// A layer is only kept open while it is being written or read.
+	private final File directory;
+	private final ArrayList<StateFile> layers;
+	private final StateFile[] visited;
+
+	// Files holding the states generated from the current layer, by
+	// partition, until they are merged into the next layer.
+	private final StateFile[] candidates;
+
+	/**
+	 * Constructs a search of the given level, creating a new directory for
+	 * its files.
+	 * 
+	 * @param packedLevel the layout of the level being solved.
+	 * @param settings the settings to solve with.
+	 * @param progress the progress to update while searching.
+	 * @throws IOException if the directory or its files cannot be created.
+	 */
+	ExternalSearch(PackedLevel packedLevel, SolverSettings settings,
+			SolverProgress progress) throws IOException
+	{
+		this.packedLevel = packedLevel;
+		stateWords = packedLevel.getStateWords();
+		memoryLimit = settings.getMemoryLimit();
+		offHeap = settings.isOffHeap();
+		this.progress = progress;
+		region = new RegionBoard(packedLevel.getHeight(),
+				packedLevel.getWidth());
+		settings.getScratchDirectory().mkdirs();
+		directory = Files.createTempDirectory(
+				settings.getScratchDirectory().toPath(), "search").toFile();
+		layers = new ArrayList<StateFile>();
+		visited = new StateFile[PARTITIONS];
+		candidates = new StateFile[PARTITIONS];
+		for (int partition = 0; partition < PARTITIONS; partition++)
+			visited[partition] = createFile("visited" + partition);
+	}
+
+	/**
+	 * Deletes all of the search's files.
+	 * 
+	 * @throws IOException if a file cannot be closed.
+	 */
+	private void close() throws IOException
+	{
+		for (StateFile layer : layers)
+			layer.delete();
+		for (StateFile partition : visited)
+			partition.delete();
+		for (StateFile partition : candidates)
+			if (partition != null)
+				partition.delete();
+		if (!directory.delete())
+			directory.deleteOnExit();
+	}
+
+	/**
+	 * Creates a new file in the search's directory.
+	 * 
+	 * @param name the name of the file.
+	 * @return the new file.
+	 * @throws IOException if the file cannot be created.
+	 */
+	private StateFile createFile(String name) throws IOException
+	{
+		return new StateFile(new File(directory, name), stateWords);
+	}
+
+	/**
+	 * Moves the states generated from a layer into the next layer, skipping
+	 * any that were already visited. The next layer is finished once every
+	 * partition has been merged.
+	 * 
+	 * @param next the file to add the new states to.
+	 * @throws IOException if the files cannot be read or written.
+	 */
+	private void merge(StateFile next) throws IOException
+	{
+		long fileSize = 0;
+		long storedStates = 0;
+		for (int partition = 0; partition < PARTITIONS; partition++) {
+			progress.checkCancelled();
+			StateFile partitionVisited = visited[partition];
+			StateFile partitionCandidates = candidates[partition];
+			StateTable table = new StateTable(stateWords, memoryLimit,
+					offHeap);
+			for (long index = 0; index < partitionVisited.size(); index++)
+				table.add(partitionVisited.getState(index));
+			for (long index = 0; index < partitionCandidates.size(); index++) {
+				PackedLevel.State state = partitionCandidates.getState(index);
+				if (table.add(state)) {
+					next.add(state, partitionCandidates.getParent(index));
+					partitionVisited.add(state, -1);
+				}
+			}
+			partitionCandidates.delete();
+			candidates[partition] = null;
+			fileSize += partitionVisited.getFileSize();
+			storedStates += partitionVisited.size();
+		}
+		next.finish();
+		progress.setMemoryUsage(fileSize, storedStates);
+	}
+
+	/**
+	 * Finds the partition a state belongs to.
+	 * 
+	 * @param state the state to check.
+	 * @return the partition of the state.
+	 */
+	private static int partitionOf(PackedLevel.State state)
+	{
+		return (int) (state.fingerprint >>> 64 - PARTITION_BITS);
+	}
+
+	/**
+	 * Finds the actions leading to a state by following the parents of each
+	 * state back to the start, finding the action between each state and its
+	 * parent again.
+	 * 
+	 * @param depth the layer of the state.
+	 * @param index the index of the state in its layer.
+	 * @return the codes of the actions from the start to the state.
+	 * @throws IOException if the layers cannot be read.
+	 */
+	private LinkedList<Integer> retrace(int depth, long index)
+			throws IOException
+	{
+		LinkedList<Integer> solution = new LinkedList<Integer>();
+		for (int layer = depth; layer > 0; layer--) {
+			PackedLevel.State state = layers.get(layer).getState(index);
+			index = layers.get(layer).getParent(index);
+			PackedLevel.State parent = layers.get(layer - 1).getState(index);
+
+			layers.get(layer).closeReader();
+			layers.get(layer - 1).closeReader();
+
+			// Expand the parent again to find the action leading to this
+			// state.
+			LinkedList<PackedLevel.State> nextLevels = new LinkedList<PackedLevel.State>();
+			LinkedList<Integer> nextCodes = new LinkedList<Integer>();
+			LevelSolution.floodFill(packedLevel, parent, region, -1, -1,
+					nextLevels, nextCodes);
+			while (!nextLevels.isEmpty()) {
+				int code = nextCodes.remove();
+				if (nextLevels.remove().equals(state)) {
+					solution.addFirst(code);
+					break;
+				}
+			}
+		}
+		return solution;
+	}
+
+	/**
+	 * Searches for the fewest actions that solve the level, one layer at a
+	 * time. All files are deleted once the search ends.
+	 * 
+	 * @param start the starting state of the level.
+	 * @return the codes of the actions that solve the level, or null if it
+	 *         cannot be solved.
+	 * @throws IOException if the search's files cannot be used.
+	 */
+	LinkedList<Integer> search(PackedLevel.State start) throws IOException
+	{
+		try {
+			StateFile first = createFile("layer0");
+			first.add(start, -1);
+			first.finish();
+			layers.add(first);
+			visited[partitionOf(start)].add(start, -1);
+
+			// Examine all the states in the current layer.
+			for (int depth = 0; layers.get(depth).size() > 0; depth++) {
+				StateFile current = layers.get(depth);
+				progress.setLayer(depth, current.size());
+				for (int partition = 0; partition < PARTITIONS; partition++)
+					candidates[partition] = createFile("candidates"
+							+ partition);
+
+				for (long index = 0; index < current.size(); index++) {
+					progress.checkCancelled();
+					progress.expanded(1);
+					PackedLevel.State currentLevel = current.getState(index);
+					LinkedList<PackedLevel.State> nextLevels = new LinkedList<PackedLevel.State>();
+					LinkedList<Integer> nextCodes = new LinkedList<Integer>();
+
+					// Check to see if an end tile can be reached from here,
+					// signaling that the level is solved. The actions leading
+					// to each state are not kept, so no rotations are pruned.
+					if (LevelSolution.floodFill(packedLevel, currentLevel,
+							region, -1, -1, nextLevels, nextCodes))
+						return retrace(depth, index);
+
+					// Write out the states generated, to be checked later.
+					for (PackedLevel.State next : nextLevels)
+						candidates[partitionOf(next)].add(next, index);
+				}
+
+				current.closeReader();
+
+				// Keep the states that were not seen before as the next layer.
+				StateFile next = createFile("layer" + (depth + 1));
+				layers.add(next);
+				merge(next);
+			}
+			return null;
+		} finally {
+			close();
+		}
+	}
+}
@@ -47,15 +47,7 @@ public class KeyTile extends ActionTile
 	 */
 	public void activate(Level level)
 	{
-		int width = level.getWidth();
-		int height = level.getHeight();
-		for (int r = 0; r < height; r++)
-			for (int c = 0; c < width; c++) {
-				Tile tile = level.tileAt(r, c);
-				if (tile instanceof LockedTile
-						&& tile.isSameColour(targetColour))
-					((LockedTile) tile).toggleLock();
-			}
+		level.activateTileAt(row, col);
 	}
 
 	/**
@@ -68,16 +60,7 @@ public class KeyTile extends ActionTile
 	 */
 	public boolean canActivate(Level level)
 	{
-		int width = level.getWidth();
-		int height = level.getHeight();
-		for (int r = 0; r < height; r++)
-			for (int c = 0; c < width; c++) {
-				Tile tile = level.tileAt(r, c);
-				if (tile instanceof LockedTile
-						&& tile.isSameColour(targetColour))
-					return true;
-			}
-		return false;
+		return level.canActivateTileAt(row, col);
 	}
 
 	/**
@@ -37,6 +37,23 @@ public class LauncherTile extends ActionTile
 		direction = 0;
 	}
 
+	/**
+	 * Constructs a new LauncherTile facing the given direction.
+	 * 
+	 * @param tileColour this tile's colour.
+	 * @param targetColour the colour that it targets.
+	 * @param connectors the colours of its 4 connectors.
+	 * @param row the row this tile is in.
+	 * @param col the column this tile is in.
+	 * @param direction the direction it launches the player in (URDL).
+	 */
+	LauncherTile(int tileColour, int targetColour, int[] connectors, int row,
+			int col, int direction)
+	{
+		super(tileColour, targetColour, connectors, row, col);
+		this.direction = direction;
+	}
+
 	/**
 	 * Constructs a new LauncherTile based off the given one.
 	 * 
@@ -56,26 +73,7 @@ public class LauncherTile extends ActionTile
 	 */
 	public void activate(Level level)
 	{
-		if (direction == UP && row - 2 >= 0
-				&& level.tileAt(row - 2, col).canEnter()) {
-			level.movePlayerTo(row - 2, col);
-			return;
-		}
-		if (direction == RIGHT && col + 2 < level.getWidth()
-				&& level.tileAt(row, col + 2).canEnter()) {
-			level.movePlayerTo(row, col + 2);
-			return;
-		}
-		if (direction == DOWN && row + 2 < level.getHeight()
-				&& level.tileAt(row + 2, col).canEnter()) {
-			level.movePlayerTo(row + 2, col);
-			return;
-		}
-		if (direction == LEFT && col - 2 >= 0
-				&& level.tileAt(row, col - 2).canEnter()) {
-			level.movePlayerTo(row, col - 2);
-			return;
-		}
+		level.activateTileAt(row, col);
 	}
 
 	/**
@@ -86,19 +84,7 @@ public class LauncherTile extends ActionTile
 	 */
 	public boolean canActivate(Level level)
 	{
-		if (direction == UP && row - 2 >= 0
-				&& level.tileAt(row - 2, col).canEnter())
-			return true;
-		if (direction == RIGHT && col + 2 < level.getWidth()
-				&& level.tileAt(row, col + 2).canEnter())
-			return true;
-		if (direction == DOWN && row + 2 < level.getHeight()
-				&& level.tileAt(row + 2, col).canEnter())
-			return true;
-		if (direction == LEFT && col - 2 >= 0
-				&& level.tileAt(row, col - 2).canEnter())
-			return true;
-		return false;
+		return level.canActivateTileAt(row, col);
 	}
 
 	/**
@@ -145,6 +131,16 @@ public class LauncherTile extends ActionTile
 		return false;
 	}
 
+	/**
+	 * Gives the direction this tile launches the player in.
+	 * 
+	 * @return the launching direction (URDL).
+	 */
+	public int getDirection()
+	{
+		return direction;
+	}
+
 	/**
 	 * Returns a hashCode value for this tile.
 	 * 
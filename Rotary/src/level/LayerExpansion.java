@@ -0,0 +1,192 @@
+package level;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Expands a batch of states from one layer of a breadth first search. The
+ * batch can be split across the threads of a ForkJoinPool, since each state
+ * is expanded on its own. The results are kept by the index of the state they
+ * came from, so they can be merged into the next layer in the same order no
+ * matter how many threads did the work.
+ * 
+ * @author Austin Tripp and Sherman Ying
+ * @version October 18, 2026
+ */
+class LayerExpansion extends RecursiveAction
+{
+	private static final long serialVersionUID = 3071529866104523527L;
+
+	// The most states a task expands without splitting.
+	private static final int TASK_SIZE = 64;
+
+	// The search being expanded.
+	private final PackedLevel packedLevel;
+	private final StateTable visitedLevels;
+	private final boolean parallel;
+
+	// The state and action each state was reached by, by the state's index.
+	private final int[] parents;
+	private final int[] codes;
+
+	// The range of states expanded by this task.
+	private final int batchStart;
+	private final int from;
+	private final int to;
+
+	// The results for the whole batch, by offset from batchStart.
+	private final boolean[] solved;
+	private final List<LinkedList<PackedLevel.State>> nextLevels;
+	private final List<LinkedList<Integer>> nextCodes;
+
+	/**
+	 * Constructs the expansion of a batch of states.
+	 * 
+	 * @param packedLevel the layout of the level being solved.
+	 * @param visitedLevels the states visited in earlier layers. This table
+	 *            must not change while the batch is being expanded.
+	 * @param parents the index of the state each state was reached from, or
+	 *            -1 for the start.
+	 * @param codes the code of the action each state was reached by.
+	 * @param batchStart the index of the first state in the batch.
+	 * @param batchEnd the index after the last state in the batch.
+	 * @param parallel true if the batch may be split into smaller tasks.
+	 */
+	LayerExpansion(PackedLevel packedLevel, StateTable visitedLevels,
+			int[] parents, int[] codes, int batchStart, int batchEnd,
+			boolean parallel)
+	{
+		this.packedLevel = packedLevel;
+		this.visitedLevels = visitedLevels;
+		this.parallel = parallel;
+		this.parents = parents;
+		this.codes = codes;
+		this.batchStart = batchStart;
+		from = batchStart;
+		to = batchEnd;
+		int size = batchEnd - batchStart;
+		solved = new boolean[size];
+		nextLevels = new ArrayList<LinkedList<PackedLevel.State>>(size);
+		nextCodes = new ArrayList<LinkedList<Integer>>(size);
+		for (int offset = 0; offset < size; offset++) {
+			nextLevels.add(null);
+			nextCodes.add(null);
+		}
+	}
+
+	/**
+	 * Constructs a task expanding part of the batch of the given task.
+	 * 
+	 * @param batch the task expanding the whole batch.
+	 * @param from the index of the first state to expand.
+	 * @param to the index after the last state to expand.
+	 */
+	private LayerExpansion(LayerExpansion batch, int from, int to)
+	{
+		packedLevel = batch.packedLevel;
+		visitedLevels = batch.visitedLevels;
+		parallel = true;
+		parents = batch.parents;
+		codes = batch.codes;
+		batchStart = batch.batchStart;
+		this.from = from;
+		this.to = to;
+		solved = batch.solved;
+		nextLevels = batch.nextLevels;
+		nextCodes = batch.nextCodes;
+	}
+
+	/**
+	 * Expands the states of this task, splitting it in two if it is large.
+	 */
+	protected void compute()
+	{
+		if (parallel && to - from > TASK_SIZE) {
+			int middle = (from + to) >>> 1;
+			invokeAll(new LayerExpansion(this, from, middle),
+					new LayerExpansion(this, middle, to));
+			return;
+		}
+		RegionBoard region = new RegionBoard(packedLevel.getHeight(),
+				packedLevel.getWidth());
+		for (int index = from; index < to; index++)
+			expand(index, region);
+	}
+
+	/**
+	 * Expands a single state, keeping the states it leads to that were not
+	 * visited in an earlier layer.
+	 * 
+	 * @param index the index of the state in the table.
+	 * @param region the board to reuse for finding the cells the player can
+	 *            reach.
+	 */
+	private void expand(int index, RegionBoard region)
+	{
+		PackedLevel.State currentLevel = visitedLevels.get(index);
+		LinkedList<PackedLevel.State> levels = new LinkedList<PackedLevel.State>();
+		LinkedList<Integer> levelCodes = new LinkedList<Integer>();
+
+		// Check to see if an end tile can be reached from here, signaling that
+		// the level is solved.
+		int offset = index - batchStart;
+		if (LevelSolution.floodFill(packedLevel, currentLevel, region,
+				LevelSolution.getLastCode(parents, codes, index, 1),
+				LevelSolution.getLastCode(parents, codes, index, 2), levels,
+				levelCodes)) {
+			solved[offset] = true;
+			return;
+		}
+
+		// Drop the states that were already visited.
+		Iterator<PackedLevel.State> nextLevel = levels.iterator();
+		Iterator<Integer> nextCode = levelCodes.iterator();
+		while (nextLevel.hasNext()) {
+			nextCode.next();
+			if (visitedLevels.indexOf(nextLevel.next()) >= 0) {
+				nextLevel.remove();
+				nextCode.remove();
+			}
+		}
+		nextLevels.set(offset, levels);
+		nextCodes.set(offset, levelCodes);
+	}
+
+	/**
+	 * Gives the codes of the actions leading to the states reached from a
+	 * state in the batch.
+	 * 
+	 * @param index the index of the state in the table.
+	 * @return the codes of the actions leading to each of the states from
+	 *         getNextLevels.
+	 */
+	LinkedList<Integer> getNextCodes(int index)
+	{
+		return nextCodes.get(index - batchStart);
+	}
+
+	/**
+	 * Gives the states reached from a state in the batch.
+	 * 
+	 * @param index the index of the state in the table.
+	 * @return the states reached that were not visited in an earlier layer.
+	 */
+	LinkedList<PackedLevel.State> getNextLevels(int index)
+	{
+		return nextLevels.get(index - batchStart);
+	}
+
+	/**
+	 * Checks whether a FinishTile can be reached from a state in the batch.
+	 * 
+	 * @param index the index of the state in the table.
+	 * @return true if the state is solved, otherwise false.
+	 */
+	boolean isSolved(int index)
+	{
+		return solved[index - batchStart];
+	}
+}
@@ -5,10 +5,16 @@ import java.awt.Point;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 
 /**
- * Stores an entire level of the game.
+ * Stores an entire level of the game. Each tile is packed into an int and
+ * kept in a TileGrid, by cell in row-major order, so moving, rotating and
+ * activating never touch a Tile object, and copies of a level share every
+ * part of the grid neither of them has changed. Empty cells take no memory
+ * of their own, so large levels that are mostly empty stay small. The Tiles
+ * given by tileAt() are views of the grid for the GUI and editor.
  * 
  * @author Austin Tripp and Sherman Ying
  * @version June 15, 2013
@@ -17,19 +23,82 @@ public class Level implements Serializable
 {
 	private static final long serialVersionUID = 9001L;
 
+	// Levels are still saved as a grid of Tiles, so packs and solutions
+	// saved before the tiles were stored as arrays can still be read.
+	private static final ObjectStreamField[] serialPersistentFields = {
+			new ObjectStreamField("map", Tile[][].class),
+			new ObjectStreamField("name", String.class),
+			new ObjectStreamField("player", Player.class) };
+
 	// View sizing constants.
 	public final static int VIEW_ROWS = 8;
 	public final static int VIEW_COLS = 12;
 
+	// Codes for the kinds of tile, and the class of each kind.
+	private static final byte EMPTY = 0;
+	private static final byte TILE = 1;
+	private static final byte STATIC = 2;
+	private static final byte START = 3;
+	private static final byte FINISH = 4;
+	private static final byte LOCKED = 5;
+	private static final byte KEY = 6;
+	private static final byte PAINT = 7;
+	private static final byte TRANSPORT = 8;
+	private static final byte LAUNCHER = 9;
+	private static final Class<?>[] KIND_CLASSES = { EmptyTile.class,
+			Tile.class, StaticTile.class, StartTile.class, FinishTile.class,
+			LockedTile.class, KeyTile.class, PaintTile.class,
+			TransportTile.class, LauncherTile.class };
+
+	// Layout of a packed tile. Connectors take the low 12 bits, 3 bits per
+	// direction, followed by the colour, the target colour of an action
+	// tile, the state (the lock of a LockedTile or the direction of a
+	// LauncherTile) and the kind.
+	private static final int CONNECTOR_MASK = 0xFFF;
+	private static final int COLOUR_SHIFT = 12;
+	private static final int TARGET_SHIFT = 15;
+	private static final int STATE_SHIFT = 18;
+	private static final int KIND_SHIFT = 20;
+
+	// Views are kept in blocks of 64 cells, and every empty cell shares one.
+	private static final int VIEW_BLOCK_BITS = 6;
+	private static final EmptyTile EMPTY_VIEW = new EmptyTile();
+
 	// Player data.
 	private Player player;
 
-	// Tile data.
-	private Tile[][] map;
+	// Tile data, by cell. Action tiles also keep the row and column they
+	// were made for.
+	private transient int height;
+	private transient int width;
+	private transient TileGrid grid;
+
+	// The number of tiles of each kind, and the cells of each colour that
+	// are not empty, that are LockedTiles and that are TransportTiles, so
+	// activating a tile only looks at the tiles it affects. Copies of a
+	// level share the indexes until one of them repaints its tiles.
+	private transient int[] tileCounts;
+	private transient CellIndex colourIndex;
+	private transient CellIndex lockedIndex;
+	private transient CellIndex transportIndex;
+	private transient boolean sharedIndexes;
+
+	// The cells the player can walk between, found when first asked for and
+	// then kept up to date as tiles turn. Copies of a level share them until
+	// one of them turns its tiles.
+	private transient Connectivity connectivity;
+	private transient boolean sharedConnectivity;
+
+	// Views of the tiles, made when first asked for.
+	private transient Tile[][] views;
 
 	// Name of the level.
 	private String name;
 
+	// Zobrist fingerprint of the tiles and player, built when first needed.
+	private transient long fingerprint;
+	private transient boolean hasFingerprint;
+
 	/**
 	 * Reloads all tile textures from the given texture pack. If the selected
 	 * pack is missing a texture, this will load the default image.
@@ -50,19 +119,28 @@ public class Level implements Serializable
 	 */
 	public Level(Level clone)
 	{
-		map = new Tile[clone.getHeight()][clone.getWidth()];
-		for (int row = 0; row < map.length; row++)
-			for (int col = 0; col < map[row].length; col++)
-				map[row][col] = clone.map[row][col].clone();
+		height = clone.height;
+		width = clone.width;
+		grid = new TileGrid(clone.grid);
+		tileCounts = clone.tileCounts;
+		colourIndex = clone.colourIndex;
+		lockedIndex = clone.lockedIndex;
+		transportIndex = clone.transportIndex;
+		sharedIndexes = clone.sharedIndexes = true;
+		connectivity = clone.connectivity;
+		sharedConnectivity = clone.sharedConnectivity = true;
 		player = new Player(clone.player);
 		name = clone.name;
 		// Not copied since there is no need (Strings are immutable).
+		fingerprint = clone.fingerprint;
+		hasFingerprint = clone.hasFingerprint;
 	}
 
 	/**
 	 * Constructs a new level object.
 	 * 
-	 * @param tiles the array of tiles in the level.
+	 * @param tiles the array of tiles in the level. Null tiles are left empty,
+	 *            so large levels do not need an EmptyTile for every gap.
 	 * @param levelName the name of this level.
 	 */
 	public Level(Tile[][] tiles, String levelName)
@@ -96,26 +174,26 @@ public class Level implements Serializable
 				+ 1 : VIEW_ROWS;
 		int noOfCols = lastCol - firstCol + 1 > VIEW_COLS ? lastCol - firstCol
 				+ 1 : VIEW_COLS;
-		map = new Tile[noOfRows][noOfCols];
+		allocate(noOfRows, noOfCols);
 
 		// Create the map and set the player's starting position.
 		int startRow = 0;
 		int startCol = 0;
-		for (int row = 0; row < map.length; row++)
-			for (int col = 0; col < map[row].length; col++) {
-				// Fill any null tiles as EmptyTiles.
-				if (row + firstRow > lastRow || col + firstCol > lastCol
-						|| tiles[row + firstRow][col + firstCol] == null)
-					map[row][col] = new EmptyTile();
-				// Copy valid tiles into place.
-				else if (tiles[row + firstRow][col + firstCol] != null) {
-					map[row][col] = tiles[row + firstRow][col + firstCol];
-					if (map[row][col] instanceof StartTile) {
+		for (int row = 0; row < height; row++)
+			for (int col = 0; col < width; col++) {
+				// Leave any missing tiles empty, and copy valid tiles into
+				// place.
+				if (row + firstRow <= lastRow && col + firstCol <= lastCol
+						&& tiles[row + firstRow][col + firstCol] != null) {
+					setTile(row * width + col, tiles[row + firstRow][col
+							+ firstCol]);
+					if (kindOf(grid.get(row * width + col)) == START) {
 						startRow = row;
 						startCol = col;
 					}
 				}
 			}
+		buildIndexes();
 		player = new Player(startRow, startCol);
 	}
 
@@ -124,7 +202,102 @@ public class Level implements Serializable
 	 */
 	public void activate()
 	{
-		map[player.getRow()][player.getCol()].activate(this);
+		activate(player.getRow() * width + player.getCol());
+	}
+
+	/**
+	 * Activates the tile at the given cell.
+	 * 
+	 * @param cell the cell of the tile.
+	 */
+	private void activate(int cell)
+	{
+		/*
+		 * The activated tile may change itself, so its key is swapped around
+		 * the activation. Any other tiles it changes are updated through
+		 * repaint() and toggleLockAt().
+		 */
+		updateFingerprint(tileKey(cell));
+		int tile = grid.get(cell);
+		int target = targetOf(tile);
+		switch (kindOf(tile)) {
+		case KEY:
+			for (int index = 0; index < lockedIndex.size(target); index++) {
+				int locked = lockedIndex.get(target, index);
+				toggleLockAt(locked / width, locked % width);
+			}
+			break;
+		case PAINT:
+			int colour = colourOf(tile);
+			if (colour != target) {
+				repaint(target, colour);
+				colourIndex.remove(colour, cell);
+				colourIndex.add(target, cell);
+			}
+			grid.set(cell, pack(PAINT, target, tile & CONNECTOR_MASK, colour,
+					stateOf(tile)));
+			break;
+		case TRANSPORT:
+			int next = getNextTransporter(cell);
+			movePlayerTo(next / width, next % width);
+			break;
+		case LAUNCHER:
+			int landing = getLaunchTarget(cell);
+			if (landing >= 0)
+				movePlayerTo(landing / width, landing % width);
+			break;
+		}
+		forgetView(cell);
+		updateFingerprint(tileKey(cell));
+	}
+
+	/**
+	 * Activates the action tile made for the given position. Used by action
+	 * tiles to activate themselves.
+	 * 
+	 * @param row the row of the tile.
+	 * @param col the column of the tile.
+	 */
+	void activateTileAt(int row, int col)
+	{
+		activate(row * width + col);
+	}
+
+	/**
+	 * Makes room for the tiles of a level of the given size, with every cell
+	 * empty.
+	 * 
+	 * @param noOfRows the number of rows.
+	 * @param noOfCols the number of columns.
+	 */
+	private void allocate(int noOfRows, int noOfCols)
+	{
+		height = noOfRows;
+		width = noOfCols;
+		grid = new TileGrid(height * width);
+	}
+
+	/**
+	 * Counts the tiles of each kind and sorts the cells into the colour
+	 * indexes.
+	 */
+	private void buildIndexes()
+	{
+		tileCounts = new int[KIND_CLASSES.length];
+		colourIndex = new CellIndex(8);
+		lockedIndex = new CellIndex(8);
+		transportIndex = new CellIndex(8);
+		for (int cell = 0; cell < height * width; cell++) {
+			int tile = grid.get(cell);
+			int kind = kindOf(tile);
+			tileCounts[kind]++;
+			if (kind != EMPTY)
+				colourIndex.add(colourOf(tile), cell);
+			if (kind == LOCKED)
+				lockedIndex.add(colourOf(tile), cell);
+			else if (kind == TRANSPORT)
+				transportIndex.add(colourOf(tile), cell);
+		}
 	}
 
 	/**
@@ -135,7 +308,63 @@ public class Level implements Serializable
 	 */
 	public boolean canActivate()
 	{
-		return map[player.getRow()][player.getCol()].canActivate(this);
+		return canActivate(player.getRow() * width + player.getCol());
+	}
+
+	/**
+	 * Checks to see whether the tile at the given cell can be activated.
+	 * 
+	 * @param cell the cell of the tile.
+	 * @return true if the tile can be activated, otherwise false.
+	 */
+	private boolean canActivate(int cell)
+	{
+		int tile = grid.get(cell);
+		int target = targetOf(tile);
+		switch (kindOf(tile)) {
+		case KEY:
+			return lockedIndex.size(target) > 0;
+		case PAINT:
+			// Empty tiles are never repainted, but still count as a match.
+			return colourIndex.size(target) > 0 || target == Tile.EMPTY
+					&& tileCounts[EMPTY] > 0;
+		case TRANSPORT:
+			return getNextTransporter(cell) >= 0;
+		case LAUNCHER:
+			return getLaunchTarget(cell) >= 0;
+		}
+		return false;
+	}
+
+	/**
+	 * Checks to see whether the action tile made for the given position could
+	 * be activated. Used by action tiles to check themselves.
+	 * 
+	 * @param row the row of the tile.
+	 * @param col the column of the tile.
+	 * @return true if the tile can be activated, otherwise false.
+	 */
+	boolean canActivateTileAt(int row, int col)
+	{
+		return canActivate(row * width + col);
+	}
+
+	/**
+	 * Checks whether the player can walk from a cell to the next one in the
+	 * given direction. The connectors facing each other must be the same
+	 * colour, and the next cell must not be empty.
+	 * 
+	 * @param cell the cell the player is on.
+	 * @param next the cell next to it.
+	 * @param direction the direction of the next cell.
+	 * @return true if the player can walk there, otherwise false.
+	 */
+	private boolean canMove(int cell, int next, int direction)
+	{
+		int colour = grid.get(cell) >>> 3 * direction & 7;
+		int nextTile = grid.get(next);
+		return colour != 0 && kindOf(nextTile) != EMPTY
+				&& colour == (nextTile >>> 3 * (direction + 2 & 3) & 7);
 	}
 
 	/**
@@ -147,11 +376,9 @@ public class Level implements Serializable
 	{
 		int row = player.getRow();
 		int col = player.getCol();
-		if (row + 1 >= map.length)
+		if (row + 1 >= height)
 			return false;
-		Tile current = map[row][col];
-		Tile target = map[row + 1][col];
-		return current.canMoveDownTo(target);
+		return canMove(row * width + col, (row + 1) * width + col, Tile.DOWN);
 	}
 
 	/**
@@ -165,9 +392,7 @@ public class Level implements Serializable
 		int col = player.getCol();
 		if (col - 1 < 0)
 			return false;
-		Tile current = map[row][col];
-		Tile target = map[row][col - 1];
-		return current.canMoveLeftTo(target);
+		return canMove(row * width + col, row * width + col - 1, Tile.LEFT);
 	}
 
 	/**
@@ -179,11 +404,9 @@ public class Level implements Serializable
 	{
 		int row = player.getRow();
 		int col = player.getCol();
-		if (col + 1 >= map[0].length)
+		if (col + 1 >= width)
 			return false;
-		Tile current = map[row][col];
-		Tile target = map[row][col + 1];
-		return current.canMoveRightTo(target);
+		return canMove(row * width + col, row * width + col + 1, Tile.RIGHT);
 	}
 
 	/**
@@ -197,9 +420,7 @@ public class Level implements Serializable
 		int col = player.getCol();
 		if (row - 1 < 0)
 			return false;
-		Tile current = map[row][col];
-		Tile target = map[row - 1][col];
-		return current.canMoveUpTo(target);
+		return canMove(row * width + col, (row - 1) * width + col, Tile.UP);
 	}
 
 	/**
@@ -209,7 +430,89 @@ public class Level implements Serializable
 	 */
 	public boolean canRotate()
 	{
-		return map[player.getRow()][player.getCol()].canRotate();
+		return isRotatable(player.getRow() * width + player.getCol());
+	}
+
+	/**
+	 * Unpacks the colour of a packed tile.
+	 * 
+	 * @param tile the packed tile.
+	 * @return the colour of the tile.
+	 */
+	private static int colourOf(int tile)
+	{
+		return tile >>> COLOUR_SHIFT & 7;
+	}
+
+	/**
+	 * Checks whether the player can walk to the tile at the given position
+	 * without rotating or activating anything.
+	 * 
+	 * @param row the row of the tile.
+	 * @param col the column of the tile.
+	 * @return true if the player is on the tile or can walk to it, otherwise
+	 *         false.
+	 */
+	public boolean canWalkTo(int row, int col)
+	{
+		if (row == player.getRow() && col == player.getCol())
+			return true;
+		int component = getComponentAt(row, col);
+		return component != 0 && component == getPlayerComponent();
+	}
+
+	/**
+	 * Checks whether the player can walk to a FinishTile without rotating or
+	 * activating anything. Takes constant time once the components of the
+	 * level have been found.
+	 * 
+	 * @return true if a FinishTile can be walked to, otherwise false.
+	 */
+	public boolean canWalkToFinish()
+	{
+		return getConnectivity().hasFinish(getPlayerComponent());
+	}
+
+	/**
+	 * Makes a view of the tile at the given cell.
+	 * 
+	 * @param cell the cell of the tile.
+	 * @return a new Tile equal to the one at the cell, or the shared
+	 *         EmptyTile if the cell is empty.
+	 */
+	private Tile createView(int cell)
+	{
+		int tile = grid.get(cell);
+		int colour = colourOf(tile);
+		int[] tileConnectors = getConnectors(cell);
+		int target = targetOf(tile);
+		int row = grid.getRow(cell);
+		int col = grid.getCol(cell);
+		switch (kindOf(tile)) {
+		case EMPTY:
+			return EMPTY_VIEW;
+		case STATIC:
+			return new StaticTile(colour, tileConnectors);
+		case START:
+			return new StartTile(colour, tileConnectors);
+		case FINISH:
+			return new FinishTile(colour, tileConnectors);
+		case LOCKED:
+			LockedTile locked = new LockedTile(colour, tileConnectors);
+			if (stateOf(tile) != 0)
+				locked.toggleLock();
+			return locked;
+		case KEY:
+			return new KeyTile(colour, target, tileConnectors, row, col);
+		case PAINT:
+			return new PaintTile(colour, target, tileConnectors, row, col);
+		case TRANSPORT:
+			return new TransportTile(colour, target, tileConnectors, row, col);
+		case LAUNCHER:
+			return new LauncherTile(colour, target, tileConnectors, row, col,
+					stateOf(tile));
+		}
+		return new Tile(colour, tileConnectors);
 	}
 
 	/**
@@ -228,10 +531,9 @@ public class Level implements Serializable
 		int firstC = viewX / Tile.TILE_WIDTH;
 
 		// Draw any tiles that are fully or partially in the view of the screen.
-		for (int row = 0; row <= VIEW_ROWS && row + firstR < map.length; row++)
-			for (int col = 0; col <= VIEW_COLS
-					&& col + firstC < map[row].length; col++) {
-				map[row + firstR][col + firstC].drawTile(g2D, offsetX
+		for (int row = 0; row <= VIEW_ROWS && row + firstR < height; row++)
+			for (int col = 0; col <= VIEW_COLS && col + firstC < width; col++) {
+				tileAt(row + firstR, col + firstC).drawTile(g2D, offsetX
 						+ Tile.TILE_WIDTH * col, offsetY + Tile.TILE_WIDTH
 						* row);
 				if (player.getRow() == row + firstR
@@ -260,23 +562,120 @@ public class Level implements Serializable
 		// Compare it as a level.
 		Level other = (Level) obj;
 
+		// Levels with different fingerprints can never be equal.
+		if (getFingerprint() != other.getFingerprint())
+			return false;
+
 		// Check if the player is in the same spot.
 		if (!player.equals(other.player))
 			return false;
 
 		// Check for equal dimensions.
-		if (map.length != other.map.length
-				|| map[0].length != other.map[0].length)
+		if (height != other.height || width != other.width)
 			return false;
 
 		// Check for all tiles being equal.
-		for (int row = 0; row < map.length; row++)
-			for (int col = 0; col < map[row].length; col++)
-				if (!map[row][col].equals(other.map[row][col]))
-					return false;
+		return grid.hasSameContents(other.grid);
+	}
 
-		// If it has passed all the tests return true.
-		return true;
+	/**
+	 * Finds every tile the player can walk to from where they are standing,
+	 * without activating or rotating anything.
+	 * 
+	 * @return whether each tile can be walked to, by row and then column.
+	 */
+	public boolean[][] findReachableTiles()
+	{
+		boolean[][] reachable = new boolean[height][width];
+		for (int row = 0; row < height; row++)
+			for (int col = 0; col < width; col++)
+				reachable[row][col] = canWalkTo(row, col);
+		return reachable;
+	}
+
+	/**
+	 * Drops the view of the tile at the given cell after the tile changes.
+	 * 
+	 * @param cell the cell of the tile.
+	 */
+	private void forgetView(int cell)
+	{
+		if (views != null && views[cell >>> VIEW_BLOCK_BITS] != null)
+			views[cell >>> VIEW_BLOCK_BITS][cell & (1 << VIEW_BLOCK_BITS) - 1] =
+					null;
+	}
+
+	/**
+	 * Finds the component of the tile at the given position. Two tiles are in
+	 * the same component if the player can walk between them without
+	 * rotating or activating anything.
+	 * 
+	 * @param row the row of the tile.
+	 * @param col the column of the tile.
+	 * @return the number of the tile's component, or 0 if the tile is empty.
+	 */
+	public int getComponentAt(int row, int col)
+	{
+		return getConnectivity().get(row * width + col);
+	}
+
+	/**
+	 * Gives the components of this level, finding them if they have not been
+	 * found yet.
+	 * 
+	 * @return the components of this level.
+	 */
+	private Connectivity getConnectivity()
+	{
+		if (connectivity == null) {
+			connectivity = new Connectivity(this, height, width);
+			sharedConnectivity = false;
+		}
+		return connectivity;
+	}
+
+	/**
+	 * Unpacks the connector colours of the tile at the given cell.
+	 * 
+	 * @param cell the cell of the tile.
+	 * @return the colours of the connectors (URDL).
+	 */
+	private int[] getConnectors(int cell)
+	{
+		int packed = grid.get(cell);
+		return new int[] { packed & 7, packed >>> 3 & 7, packed >>> 6 & 7,
+				packed >>> 9 & 7 };
+	}
+
+	/**
+	 * Finds a key identifying the contents of this level: its dimensions, its
+	 * tiles and the player's position. The name of the level is not included,
+	 * so equal levels in different packs share a key. Unlike the fingerprint,
+	 * levels of different sizes get unrelated keys.
+	 * 
+	 * @return a 64-bit key of the level's contents.
+	 */
+	public long getContentKey()
+	{
+		return getFingerprint() ^ Zobrist.sizeKey(height, width);
+	}
+
+	/**
+	 * Finds the Zobrist fingerprint of this level. Equal levels always have
+	 * equal fingerprints, and the fingerprint is kept up to date as the level
+	 * changes, so it costs nothing to look up after it is first built.
+	 * 
+	 * @return a 64-bit fingerprint of the tiles and the player's position.
+	 */
+	public long getFingerprint()
+	{
+		if (!hasFingerprint) {
+			fingerprint = playerKey();
+			for (int cell = 0; cell < height * width; cell++)
+				fingerprint ^= tileKey(cell);
+			hasFingerprint = true;
+		}
+		return fingerprint;
 	}
 
 	/**
@@ -286,7 +685,77 @@ public class Level implements Serializable
 	 */
 	public int getHeight()
 	{
-		return map.length;
+		return height;
+	}
+
+	/**
+	 * Finds the cell a LauncherTile would launch the player to. The player
+	 * lands 2 tiles away in the direction it faces, if that tile exists and
+	 * can be entered.
+	 * 
+	 * @param cell the cell of the LauncherTile.
+	 * @return the cell to land on, or -1 if the player cannot be launched.
+	 */
+	private int getLaunchTarget(int cell)
+	{
+		int row = grid.getRow(cell);
+		int col = grid.getCol(cell);
+		switch (stateOf(grid.get(cell))) {
+		case Tile.UP:
+			row -= 2;
+			break;
+		case Tile.RIGHT:
+			col += 2;
+			break;
+		case Tile.DOWN:
+			row += 2;
+			break;
+		default:
+			col -= 2;
+			break;
+		}
+		if (!isValidIndex(row, col)
+				|| kindOf(grid.get(row * width + col)) == EMPTY)
+			return -1;
+		return row * width + col;
+	}
+
+	/**
+	 * Finds the transporter a TransportTile sends the player to: the first
+	 * transporter of its target colour after it in reading order, wrapping
+	 * around to the start of the level. The TransportTile itself is skipped.
+	 * 
+	 * @param cell the cell of the TransportTile.
+	 * @return the cell of the transporter, or -1 if there is none.
+	 */
+	private int getNextTransporter(int cell)
+	{
+		int target = targetOf(grid.get(cell));
+		int self = grid.getRow(cell) * width + grid.getCol(cell);
+		int first = -1;
+		int next = -1;
+		for (int index = 0; index < transportIndex.size(target); index++) {
+			int other = transportIndex.get(target, index);
+			if (other == self)
+				continue;
+			if (first < 0 || other < first)
+				first = other;
+			if (other > self && (next < 0 || other < next))
+				next = other;
+		}
+		return next >= 0 ? next : first;
+	}
+
+	/**
+	 * Finds the component the player is in. Every tile the player can walk to
+	 * without rotating or activating anything is in this component.
+	 * 
+	 * @return the number of the player's component, or 0 if the player is on
+	 *         an empty tile.
+	 */
+	public int getPlayerComponent()
+	{
+		return getComponentAt(player.getRow(), player.getCol());
 	}
 
 	/**
@@ -307,7 +776,36 @@ public class Level implements Serializable
 	 */
 	public int getWidth()
 	{
-		return map[0].length;
+		return width;
+	}
+
+	/**
+	 * Finds the cell next to the given one that the player could walk to.
+	 * 
+	 * @param cell the cell the player is on.
+	 * @param direction the direction to walk in.
+	 * @return the cell walked to, or -1 if the player cannot walk that way.
+	 */
+	int getWalkableNeighbour(int cell, int direction)
+	{
+		int row = cell / width;
+		int col = cell % width;
+		int next;
+		switch (direction) {
+		case Tile.UP:
+			next = row > 0 ? cell - width : -1;
+			break;
+		case Tile.RIGHT:
+			next = col + 1 < width ? cell + 1 : -1;
+			break;
+		case Tile.DOWN:
+			next = row + 1 < height ? cell + width : -1;
+			break;
+		default:
+			next = col > 0 ? cell - 1 : -1;
+			break;
+		}
+		return next >= 0 && canMove(cell, next, direction) ? next : -1;
 	}
 
 	/**
@@ -317,26 +815,47 @@ public class Level implements Serializable
 	 */
 	public int hashCode()
 	{
+		long fingerprint = getFingerprint();
+		return (int) (fingerprint ^ fingerprint >>> 32);
+	}
 
-		/*
-		 * Since it is impossible to generate a guaranteed unique integer for
-		 * each level, a level's hashCode is generated by finding the hashCodes
-		 * of tiles, adding to them, then multiplying them all to the player's
-		 * hashCode.
-		 */
-		int hashCode = player.hashCode();
-
-		// Multiply it by all the tiles' hashCodes.
-		for (int row = 0; row < map.length; row++)
-			for (int col = 0; col < map[row].length; col++) {
-				int tileHash = map[row][col].hashCode();
-				tileHash = tileHash * 71 + row;
-				tileHash = tileHash * 5 + col;
-				hashCode *= tileHash;
-			}
+	/**
+	 * Checks whether the tile at the given cell can be entered.
+	 * 
+	 * @param cell the cell of the tile.
+	 * @return true if the tile is not empty, otherwise false.
+	 */
+	boolean isEnterable(int cell)
+	{
+		return kindOf(grid.get(cell)) != EMPTY;
+	}
+
+	/**
+	 * Checks whether the tile at the given cell is a FinishTile.
+	 * 
+	 * @param cell the cell of the tile.
+	 * @return true if the tile is a FinishTile, otherwise false.
+	 */
+	boolean isFinish(int cell)
+	{
+		return kindOf(grid.get(cell)) == FINISH;
+	}
 
-		// Return this hashCode.
-		return hashCode;
+	/**
+	 * Checks whether the tile at the given cell turns when it or a tile next
+	 * to it is rotated.
+	 * 
+	 * @param cell the cell of the tile.
+	 * @return true if the tile can be rotated, otherwise false.
+	 */
+	private boolean isRotatable(int cell)
+	{
+		int tile = grid.get(cell);
+		int kind = kindOf(tile);
+		if (kind == LOCKED)
+			return stateOf(tile) != 0;
+		return kind != EMPTY && kind != STATIC && kind != START
+				&& kind != FINISH;
 	}
 
 	/**
@@ -349,11 +868,22 @@ public class Level implements Serializable
 	 */
 	private boolean isValidIndex(int row, int col)
 	{
-		if (row < 0 || row >= map.length || col < 0 || col >= map[0].length)
+		if (row < 0 || row >= height || col < 0 || col >= width)
 			return false;
 		return true;
 	}
 
+	/**
+	 * Unpacks the kind of a packed tile.
+	 * 
+	 * @param tile the packed tile.
+	 * @return the kind of the tile.
+	 */
+	private static int kindOf(int tile)
+	{
+		return tile >>> KIND_SHIFT;
+	}
+
 	/**
 	 * Checks to see whether the player has completed the current level.
 	 * 
@@ -361,7 +891,8 @@ public class Level implements Serializable
 	 */
 	public boolean levelComplete()
 	{
-		return map[player.getRow()][player.getCol()] instanceof FinishTile;
+		return kindOf(grid.get(player.getRow() * width + player.getCol()))
+				== FINISH;
 	}
 
 	/**
@@ -369,7 +900,9 @@ public class Level implements Serializable
 	 */
 	public void moveDown()
 	{
+		updateFingerprint(playerKey());
 		player.moveDown();
+		updateFingerprint(playerKey());
 	}
 
 	/**
@@ -377,7 +910,9 @@ public class Level implements Serializable
 	 */
 	public void moveLeft()
 	{
+		updateFingerprint(playerKey());
 		player.moveLeft();
+		updateFingerprint(playerKey());
 	}
 
 	/**
@@ -389,7 +924,9 @@ public class Level implements Serializable
 	 */
 	public void movePlayerTo(int row, int col)
 	{
+		updateFingerprint(playerKey());
 		player.reposition(row, col);
+		updateFingerprint(playerKey());
 	}
 
 	/**
@@ -397,7 +934,9 @@ public class Level implements Serializable
 	 */
 	public void moveRight()
 	{
+		updateFingerprint(playerKey());
 		player.moveRight();
+		updateFingerprint(playerKey());
 	}
 
 	/**
@@ -405,7 +944,37 @@ public class Level implements Serializable
 	 */
 	public void moveUp()
 	{
+		updateFingerprint(playerKey());
 		player.moveUp();
+		updateFingerprint(playerKey());
+	}
+
+	/**
+	 * Packs the data of a tile into an int.
+	 * 
+	 * @param kind the kind of the tile.
+	 * @param colour the colour of the tile.
+	 * @param connectors the connectors of the tile, 3 bits per direction.
+	 * @param target the target colour of an action tile, otherwise 0.
+	 * @param state the lock of a LockedTile or the direction of a
+	 *            LauncherTile, otherwise 0.
+	 * @return the packed tile.
+	 */
+	private static int pack(int kind, int colour, int connectors, int target,
+			int state)
+	{
+		return kind << KIND_SHIFT | state << STATE_SHIFT
+				| target << TARGET_SHIFT | colour << COLOUR_SHIFT | connectors;
+	}
+
+	/**
+	 * Finds the fingerprint key of the player's current position.
+	 * 
+	 * @return the key of the player's position.
+	 */
+	private long playerKey()
+	{
+		return Zobrist.playerKey(player.getRow() * width + player.getCol());
 	}
 
 	/**
@@ -416,12 +985,48 @@ public class Level implements Serializable
 	 * @throws ClassNotFoundException if the objects have been saved in the
 	 *             incorrect order.
 	 */
-	public void readObject(ObjectInputStream in) throws IOException,
+	private void readObject(ObjectInputStream in) throws IOException,
 			ClassNotFoundException
 	{
-		map = (Tile[][]) in.readObject();
-		player = (Player) in.readObject();
-		name = (String) in.readObject();
+		ObjectInputStream.GetField fields = in.readFields();
+		Tile[][] map = (Tile[][]) fields.get("map", null);
+		allocate(map.length, map[0].length);
+		for (int cell = 0; cell < height * width; cell++)
+			setTile(cell, map[cell / width][cell % width]);
+		buildIndexes();
+		player = (Player) fields.get("player", null);
+		name = (String) fields.get("name", null);
+		hasFingerprint = false;
+	}
+
+	/**
+	 * Recolours every tile of one colour to another, keeping the fingerprint
+	 * and the colour indexes up to date. Empty tiles are never recoloured.
+	 * 
+	 * @param oldColour the colour of the tiles to recolour Precondition:
+	 *            oldColour != newColour.
+	 * @param newColour the colour to change them to.
+	 */
+	private void repaint(int oldColour, int newColour)
+	{
+		if (sharedIndexes) {
+			colourIndex = new CellIndex(colourIndex);
+			lockedIndex = new CellIndex(lockedIndex);
+			transportIndex = new CellIndex(transportIndex);
+			sharedIndexes = false;
+		}
+		for (int index = 0; index < colourIndex.size(oldColour); index++) {
+			int cell = colourIndex.get(oldColour, index);
+			updateFingerprint(tileKey(cell));
+			int tile = grid.get(cell);
+			grid.set(cell, tile & ~(7 << COLOUR_SHIFT) | newColour
+					<< COLOUR_SHIFT);
+			forgetView(cell);
+			updateFingerprint(tileKey(cell));
+		}
+		colourIndex.moveAll(oldColour, newColour);
+		lockedIndex.moveAll(oldColour, newColour);
+		transportIndex.moveAll(oldColour, newColour);
 	}
 
 	/**
@@ -433,25 +1038,18 @@ public class Level implements Serializable
 		int col = player.getCol();
 
 		// Rotate this tile left.
-		map[row][col].rotateLeft();
+		rotateTileAt(row, col, true);
 
 		// Rotate the others right.
-		if (isValidIndex(row + 1, col))
-			map[row + 1][col].rotateRight();
-		if (isValidIndex(row - 1, col))
-			map[row - 1][col].rotateRight();
-		if (isValidIndex(row, col + 1))
-			map[row][col + 1].rotateRight();
-		if (isValidIndex(row, col - 1))
-			map[row][col - 1].rotateRight();
-		if (isValidIndex(row + 1, col + 1))
-			map[row + 1][col + 1].rotateRight();
-		if (isValidIndex(row - 1, col - 1))
-			map[row - 1][col - 1].rotateRight();
-		if (isValidIndex(row + 1, col - 1))
-			map[row + 1][col - 1].rotateRight();
-		if (isValidIndex(row - 1, col + 1))
-			map[row - 1][col + 1].rotateRight();
+		rotateTileAt(row + 1, col, false);
+		rotateTileAt(row - 1, col, false);
+		rotateTileAt(row, col + 1, false);
+		rotateTileAt(row, col - 1, false);
+		rotateTileAt(row + 1, col + 1, false);
+		rotateTileAt(row - 1, col - 1, false);
+		rotateTileAt(row + 1, col - 1, false);
+		rotateTileAt(row - 1, col + 1, false);
+		updateConnectivity(row, col);
 	}
 
 	/**
@@ -463,25 +1061,91 @@ public class Level implements Serializable
 		int col = player.getCol();
 
 		// Rotate this tile right.
-		map[row][col].rotateRight();
+		rotateTileAt(row, col, false);
 
 		// Rotate the others left.
-		if (isValidIndex(row + 1, col))
-			map[row + 1][col].rotateLeft();
-		if (isValidIndex(row - 1, col))
-			map[row - 1][col].rotateLeft();
-		if (isValidIndex(row, col + 1))
-			map[row][col + 1].rotateLeft();
-		if (isValidIndex(row, col - 1))
-			map[row][col - 1].rotateLeft();
-		if (isValidIndex(row + 1, col + 1))
-			map[row + 1][col + 1].rotateLeft();
-		if (isValidIndex(row - 1, col - 1))
-			map[row - 1][col - 1].rotateLeft();
-		if (isValidIndex(row + 1, col - 1))
-			map[row + 1][col - 1].rotateLeft();
-		if (isValidIndex(row - 1, col + 1))
-			map[row - 1][col + 1].rotateLeft();
+		rotateTileAt(row + 1, col, true);
+		rotateTileAt(row - 1, col, true);
+		rotateTileAt(row, col + 1, true);
+		rotateTileAt(row, col - 1, true);
+		rotateTileAt(row + 1, col + 1, true);
+		rotateTileAt(row - 1, col - 1, true);
+		rotateTileAt(row + 1, col - 1, true);
+		rotateTileAt(row - 1, col + 1, true);
+		updateConnectivity(row, col);
+	}
+
+	/**
+	 * Rotates the tile at the given position if it exists and can turn,
+	 * keeping the fingerprint up to date. The connectors are rotated as bits,
+	 * and a LauncherTile turns to face a new direction.
+	 * 
+	 * @param row the row of the tile.
+	 * @param col the column of the tile.
+	 * @param left true to rotate the tile left, false to rotate it right.
+	 */
+	private void rotateTileAt(int row, int col, boolean left)
+	{
+		if (!isValidIndex(row, col))
+			return;
+		int cell = row * width + col;
+		if (!isRotatable(cell))
+			return;
+		updateFingerprint(tileKey(cell));
+		int tile = grid.get(cell);
+		int packed = tile & CONNECTOR_MASK;
+		if (left)
+			packed = packed >>> 3 | (packed & 7) << 9;
+		else
+			packed = (packed << 3 & CONNECTOR_MASK) | packed >>> 9;
+		int state = stateOf(tile);
+		if (kindOf(tile) == LAUNCHER)
+			state = state + (left ? 3 : 1) & 3;
+		grid.set(cell, pack(kindOf(tile), colourOf(tile), packed,
+				targetOf(tile), state));
+		forgetView(cell);
+		updateFingerprint(tileKey(cell));
+	}
+
+	/**
+	 * Copies a tile into the grid at the given cell.
+	 * 
+	 * @param cell the cell to fill.
+	 * @param tile the tile to copy.
+	 */
+	private void setTile(int cell, Tile tile)
+	{
+		int kind = 0;
+		while (kind < KIND_CLASSES.length - 1
+				&& KIND_CLASSES[kind] != tile.getClass())
+			kind++;
+		if (KIND_CLASSES[kind] != tile.getClass())
+			kind = TILE;
+		int target = 0;
+		int state = 0;
+		if (tile instanceof ActionTile) {
+			ActionTile action = (ActionTile) tile;
+			target = action.getTargetColour();
+			grid.setPosition(cell, action.row, action.col);
+		}
+		if (tile instanceof LockedTile)
+			state = ((LockedTile) tile).isUnlocked() ? 1 : 0;
+		if (tile instanceof LauncherTile)
+			state = ((LauncherTile) tile).getDirection();
+		grid.set(cell, pack(kind, tile.getColour(), PackedLevel
+				.packConnectors(tile.getConnections()), target, state));
+		forgetView(cell);
+	}
+
+	/**
+	 * Unpacks the state of a packed tile.
+	 * 
+	 * @param tile the packed tile.
+	 * @return the lock of a LockedTile or the direction of a LauncherTile.
+	 */
+	private static int stateOf(int tile)
+	{
+		return tile >>> STATE_SHIFT & 3;
 	}
 
 	/**
@@ -491,11 +1155,79 @@ public class Level implements Serializable
 	 * 
 	 * @param row the row of the desired tile.
 	 * @param col the column of the desired tile.
-	 * @return the tile on the grid at (row, col).
+	 * @return a view of the tile on the grid at (row, col). Changing the view
+	 *         does not change the level. Every empty cell gives the same
+	 *         EmptyTile.
 	 */
 	public Tile tileAt(int row, int col)
 	{
-		return map[row][col];
+		int cell = row * width + col;
+		if (kindOf(grid.get(cell)) == EMPTY)
+			return EMPTY_VIEW;
+		if (views == null)
+			views = new Tile[(height * width >>> VIEW_BLOCK_BITS) + 1][];
+		Tile[] block = views[cell >>> VIEW_BLOCK_BITS];
+		if (block == null) {
+			block = new Tile[1 << VIEW_BLOCK_BITS];
+			views[cell >>> VIEW_BLOCK_BITS] = block;
+		}
+		int index = cell & (1 << VIEW_BLOCK_BITS) - 1;
+		if (block[index] == null)
+			block[index] = createView(cell);
+		return block[index];
+	}
+
+	/**
+	 * Unpacks the target colour of a packed tile.
+	 * 
+	 * @param tile the packed tile.
+	 * @return the target colour of an action tile, otherwise 0.
+	 */
+	private static int targetOf(int tile)
+	{
+		return tile >>> TARGET_SHIFT & 7;
+	}
+
+	/**
+	 * Finds the fingerprint key of the tile at the given cell. The code of
+	 * the tile is the same one its Tile view gives.
+	 * 
+	 * @param cell the cell of the tile.
+	 * @return the key of the tile in its current state.
+	 */
+	private long tileKey(int cell)
+	{
+		int tile = grid.get(cell);
+		int kind = kindOf(tile);
+		long code = KIND_CLASSES[kind].getName().hashCode();
+		code = code << 3 | colourOf(tile);
+		code = code << 12 | (tile & 7) << 9 | (tile >>> 3 & 7) << 6
+				| (tile >>> 6 & 7) << 3 | tile >>> 9 & 7;
+		if (kind >= KEY)
+			code = ((code * 31 + targetOf(tile)) * 31 + grid.getRow(cell))
+					* 31 + grid.getCol(cell);
+		if (kind == LOCKED)
+			code = code << 1 | stateOf(tile);
+		else if (kind == LAUNCHER)
+			code = code << 2 | stateOf(tile);
+		return Zobrist.cellKey(cell, code);
+	}
+
+	/**
+	 * Toggles the lock of the LockedTile at the given position, keeping the
+	 * fingerprint up to date. Used by tiles that change other tiles when
+	 * activated.
+	 * 
+	 * @param row the row of the tile.
+	 * @param col the column of the tile.
+	 */
+	void toggleLockAt(int row, int col)
+	{
+		int cell = row * width + col;
+		updateFingerprint(tileKey(cell));
+		grid.set(cell, grid.get(cell) ^ 1 << STATE_SHIFT);
+		forgetView(cell);
+		updateFingerprint(tileKey(cell));
 	}
 
 	/**
@@ -509,15 +1241,52 @@ public class Level implements Serializable
 	}
 
 	/**
-	 * Writes this level to the target ObjectOutputStream.
+	 * Keeps the components up to date after the tiles around a position turn,
+	 * if the components have been found.
+	 * 
+	 * @param row the row of the tile rotated.
+	 * @param col the column of the tile rotated.
+	 */
+	private void updateConnectivity(int row, int col)
+	{
+		if (connectivity == null)
+			return;
+		if (sharedConnectivity) {
+			connectivity = new Connectivity(connectivity);
+			sharedConnectivity = false;
+		}
+		connectivity.update(this, row, col);
+	}
+
+	/**
+	 * XORs a key into the fingerprint, if the fingerprint has been built.
+	 * 
+	 * @param key the key to add or remove.
+	 */
+	private void updateFingerprint(long key)
+	{
+		if (hasFingerprint)
+			fingerprint ^= key;
+	}
+
+	/**
+	 * Writes this level to the target ObjectOutputStream, as a grid of Tiles.
+	 * Empty cells are all written as the same EmptyTile, so each takes only a
+	 * few bytes.
 	 * 
 	 * @param out the output stream to write to.
 	 * @throws IOException when the output stream is broken.
 	 */
-	public void writeObject(ObjectOutputStream out) throws IOException
+	private void writeObject(ObjectOutputStream out) throws IOException
 	{
-		out.writeObject(map);
-		out.writeObject(player);
-		out.writeObject(name);
+		Tile[][] map = new Tile[height][width];
+		for (int row = 0; row < height; row++)
+			for (int col = 0; col < width; col++)
+				map[row][col] = createView(row * width + col);
+		ObjectOutputStream.PutField fields = out.putFields();
+		fields.put("map", map);
+		fields.put("player", player);
+		fields.put("name", name);
+		out.writeFields();
 	}
 }
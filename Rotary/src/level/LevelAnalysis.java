@@ -0,0 +1,356 @@
+package level;
+
+import java.awt.Point;
+
+/**
+ * A quick check of which parts of a level can ever be used, found without
+ * searching through its states. The analysis over-approximates the game: it
+ * assumes every tile that can ever turn can face any direction, every locked
+ * tile that a reachable key could ever open is open, and every colour a
+ * reachable paint tile could ever spread has spread. A cell that cannot be
+ * entered even then can never be entered in play, so a level whose
+ * FinishTiles all lie outside of the cells that can be entered can be
+ * rejected straight away.
+ * 
+ * @author Austin Tripp and Sherman Ying
+ * @version October 18, 2026
+ */
+public class LevelAnalysis
+{
+	// Level dimensions.
+	private final int height;
+	private final int width;
+
+	// Kind and connectors of each tile, and the position of action tiles and
+	// the direction of launchers.
+	private final byte[] kind;
+	private final int[][] connectors;
+	private final int[] tileRow;
+	private final int[] tileCol;
+	private final int[] directions;
+
+	// The colours each tile and each action tile's target could ever have,
+	// one bit per colour.
+	private final int[] colours;
+	private final int[] targets;
+
+	// Whether each locked tile could ever be unlocked, whether each tile
+	// could ever turn, and whether each cell could ever be entered.
+	private final boolean[] unlockable;
+	private final boolean[] turnable;
+	private final boolean[] enterable;
+
+	// Whether any FinishTile could ever be entered.
+	private final boolean finishReachable;
+
+	/**
+	 * Analyses the given level.
+	 * 
+	 * @param level the level to analyse.
+	 */
+	public LevelAnalysis(Level level)
+	{
+		height = level.getHeight();
+		width = level.getWidth();
+		int size = height * width;
+		kind = new byte[size];
+		connectors = new int[size][];
+		tileRow = new int[size];
+		tileCol = new int[size];
+		directions = new int[size];
+		colours = new int[size];
+		targets = new int[size];
+		unlockable = new boolean[size];
+		turnable = new boolean[size];
+		enterable = new boolean[size];
+		for (int cell = 0; cell < size; cell++) {
+			Tile tile = level.tileAt(cell / width, cell % width);
+			kind[cell] = PackedLevel.kindOf(tile);
+			connectors[cell] = tile.getConnections();
+			colours[cell] = 1 << tile.getColour();
+			if (tile instanceof ActionTile) {
+				ActionTile action = (ActionTile) tile;
+				targets[cell] = 1 << action.getTargetColour();
+				tileRow[cell] = action.row;
+				tileCol[cell] = action.col;
+			}
+			if (tile instanceof LockedTile)
+				unlockable[cell] = ((LockedTile) tile).isUnlocked();
+			if (tile instanceof LauncherTile)
+				directions[cell] = ((LauncherTile) tile).getDirection();
+		}
+		Point player = level.getPlayerPosition();
+		enterable[player.y * width + player.x] = true;
+
+		// Widen what is possible until nothing more can change.
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (int cell = 0; cell < size; cell++)
+				if (enterable[cell] && spread(cell))
+					changed = true;
+			for (int cell = 0; cell < size; cell++)
+				if (!turnable[cell] && canTurn(cell)) {
+					turnable[cell] = true;
+					changed = true;
+				}
+			for (int cell = 0; cell < size; cell++)
+				if (!enterable[cell] && canEnter(cell)) {
+					enterable[cell] = true;
+					changed = true;
+				}
+		}
+
+		boolean finish = false;
+		for (int cell = 0; cell < size; cell++)
+			if (enterable[cell] && kind[cell] == PackedLevel.FINISH)
+				finish = true;
+		finishReachable = finish;
+	}
+
+	/**
+	 * Checks whether the player could ever enter a cell from a cell that can
+	 * already be entered, by walking, launching or transporting.
+	 * 
+	 * @param cell the cell to check.
+	 * @return true if the cell could be entered, otherwise false.
+	 */
+	private boolean canEnter(int cell)
+	{
+		if (kind[cell] == PackedLevel.EMPTY)
+			return false;
+		int row = cell / width;
+		int col = cell % width;
+		for (int direction = Tile.UP; direction <= Tile.LEFT; direction++) {
+			int from = getAdjacent(row, col, direction, 1);
+			if (from >= 0 && enterable[from]
+					&& (getSideColours(cell, direction)
+							& getSideColours(from, direction + 2 & 3)) > 1)
+				return true;
+		}
+		for (int from = 0; from < kind.length; from++)
+			if (enterable[from]) {
+				if (kind[from] == PackedLevel.LAUNCHER
+						&& canLaunch(from, cell))
+					return true;
+				if (kind[from] == PackedLevel.TRANSPORT && from != cell
+						&& kind[cell] == PackedLevel.TRANSPORT
+						&& (targets[from] & colours[cell]) != 0)
+					return true;
+			}
+		return false;
+	}
+
+	/**
+	 * Checks whether a launcher could ever launch the player onto a cell.
+	 * 
+	 * @param launcher the cell of the launcher.
+	 * @param cell the cell to land on.
+	 * @return true if the launcher could land the player on the cell,
+	 *         otherwise false.
+	 */
+	private boolean canLaunch(int launcher, int cell)
+	{
+		for (int direction = Tile.UP; direction <= Tile.LEFT; direction++)
+			if ((turnable[launcher] || directions[launcher] == direction)
+					&& getAdjacent(tileRow[launcher], tileCol[launcher],
+							direction, 2) == cell)
+				return true;
+		return false;
+	}
+
+	/**
+	 * Checks whether a tile could ever be turned, either by rotating on it or
+	 * by rotating on one of its neighbours.
+	 * 
+	 * @param cell the cell of the tile.
+	 * @return true if the tile could be turned, otherwise false.
+	 */
+	private boolean canTurn(int cell)
+	{
+		if (!isRotatable(cell))
+			return false;
+		int row = cell / width;
+		int col = cell % width;
+		for (int r = row - 1; r <= row + 1; r++)
+			for (int c = col - 1; c <= col + 1; c++)
+				if (r >= 0 && r < height && c >= 0 && c < width
+						&& enterable[r * width + c]
+						&& isRotatable(r * width + c))
+					return true;
+		return false;
+	}
+
+	/**
+	 * Finds the cell a given distance away in a direction.
+	 * 
+	 * @param row the row to start from.
+	 * @param col the column to start from.
+	 * @param direction the direction to look in.
+	 * @param distance the number of cells to move.
+	 * @return the cell found, or -1 if it is outside of the level.
+	 */
+	private int getAdjacent(int row, int col, int direction, int distance)
+	{
+		switch (direction) {
+		case Tile.UP:
+			row -= distance;
+			break;
+		case Tile.RIGHT:
+			col += distance;
+			break;
+		case Tile.DOWN:
+			row += distance;
+			break;
+		default:
+			col -= distance;
+			break;
+		}
+		if (row < 0 || row >= height || col < 0 || col >= width)
+			return -1;
+		return row * width + col;
+	}
+
+	/**
+	 * Finds the colours the side of a tile facing a direction could ever
+	 * have.
+	 * 
+	 * @param cell the cell of the tile.
+	 * @param direction the direction the side faces.
+	 * @return the colours of the side, one bit per colour.
+	 */
+	private int getSideColours(int cell, int direction)
+	{
+		if (!turnable[cell])
+			return 1 << connectors[cell][direction];
+		int sides = 0;
+		for (int connector : connectors[cell])
+			sides |= 1 << connector;
+		return sides;
+	}
+
+	/**
+	 * Checks whether a cell could ever be entered by the player.
+	 * 
+	 * @param row the row of the cell.
+	 * @param col the column of the cell.
+	 * @return true if the cell could be entered, otherwise false.
+	 */
+	public boolean isEnterable(int row, int col)
+	{
+		return enterable[row * width + col];
+	}
+
+	/**
+	 * Checks whether the player could ever reach a FinishTile. If not, the
+	 * level cannot be solved.
+	 * 
+	 * @return true if a FinishTile could be reached, otherwise false.
+	 */
+	public boolean isFinishReachable()
+	{
+		return finishReachable;
+	}
+
+	/**
+	 * Checks whether the tile at a cell can be rotated while the player
+	 * stands on it, once any lock on it is open.
+	 * 
+	 * @param cell the cell to check.
+	 * @return true if the tile can be rotated, otherwise false.
+	 */
+	private boolean isRotatable(int cell)
+	{
+		return PackedLevel.isRotatable(kind[cell])
+				&& (kind[cell] != PackedLevel.LOCKED || unlockable[cell]);
+	}
+
+	/**
+	 * Checks whether rotating on a cell could ever change anything that
+	 * matters. Turning a tile only matters if the player could enter it and
+	 * the turn changes its connectors or the direction it launches in, since
+	 * turning never changes colours or locks.
+	 * 
+	 * @param cell the cell to rotate on.
+	 * @return true if the rotation could matter, otherwise false.
+	 */
+	boolean isRotationUseful(int cell)
+	{
+		int row = cell / width;
+		int col = cell % width;
+		for (int r = row - 1; r <= row + 1; r++)
+			for (int c = col - 1; c <= col + 1; c++)
+				if (r >= 0 && r < height && c >= 0 && c < width) {
+					int other = r * width + c;
+					if (turnable[other] && enterable[other]
+							&& (kind[other] == PackedLevel.LAUNCHER
+									|| !isSymmetric(other)))
+						return true;
+				}
+		return false;
+	}
+
+	/**
+	 * Checks whether a tile looks the same after a quarter turn.
+	 * 
+	 * @param cell the cell of the tile.
+	 * @return true if all four connectors have the same colour, otherwise
+	 *         false.
+	 */
+	private boolean isSymmetric(int cell)
+	{
+		int[] sides = connectors[cell];
+		return sides[Tile.UP] == sides[Tile.RIGHT]
+				&& sides[Tile.UP] == sides[Tile.DOWN]
+				&& sides[Tile.UP] == sides[Tile.LEFT];
+	}
+
+	/**
+	 * Checks whether a tile could ever be turned.
+	 * 
+	 * @param row the row of the tile.
+	 * @param col the column of the tile.
+	 * @return true if the tile could be turned, otherwise false.
+	 */
+	public boolean isTurnable(int row, int col)
+	{
+		return turnable[row * width + col];
+	}
+
+	/**
+	 * Spreads the colours that activating a tile the player can reach could
+	 * bring about. A paint tile swaps its colour and target, and paints every
+	 * tile of its target colour, while a key opens every locked tile of its
+	 * target colour.
+	 * 
+	 * @param cell the cell of the tile.
+	 * @return true if anything could now be different, otherwise false.
+	 */
+	private boolean spread(int cell)
+	{
+		boolean changed = false;
+		if (kind[cell] == PackedLevel.PAINT) {
+			int colour = colours[cell];
+			int target = targets[cell];
+			for (int other = 0; other < kind.length; other++)
+				if (other != cell && kind[other] != PackedLevel.EMPTY
+						&& (colours[other] & target) != 0
+						&& (colours[other] | colour) != colours[other]) {
+					colours[other] |= colour;
+					changed = true;
+				}
+			if ((colour | target) != colour || (colour | target) != target) {
+				colours[cell] = colour | target;
+				targets[cell] = colour | target;
+				changed = true;
+			}
+		} else if (kind[cell] == PackedLevel.KEY)
+			for (int other = 0; other < kind.length; other++)
+				if (kind[other] == PackedLevel.LOCKED && !unlockable[other]
+						&& (colours[other] & targets[cell]) != 0) {
+					unlockable[other] = true;
+					changed = true;
+				}
+		return changed;
+	}
+}
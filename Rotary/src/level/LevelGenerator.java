@@ -0,0 +1,562 @@
+package level;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Generates random levels that are known to be solvable. Each candidate is
+ * a grid of random tiles that follows the same rules as the level editor.
+ * Candidates are solved several at a time, and only those whose solution is
+ * long enough, or whose search had to expand enough states, are kept. The
+ * levels kept can be written as a level pack. Run with no arguments for the
+ * command line options.
+ * 
+ * @author Austin Tripp and Sherman Ying
+ * @version October 18, 2026
+ */
+public class LevelGenerator
+{
+	// The kinds of tile placed at random, and how often each is placed by
+	// default. The start and finish are placed separately.
+	private static final Class<?>[] TYPES = { EmptyTile.class, Tile.class,
+			StaticTile.class, LockedTile.class, KeyTile.class, PaintTile.class,
+			TransportTile.class, LauncherTile.class };
+	private static final int[] DEFAULT_WEIGHTS = { 3, 8, 4, 1, 1, 1, 2, 1 };
+
+	// The names of the tile kinds for the command line, in the same order.
+	private static final String[] TYPE_NAMES = { "empty", "tile", "static",
+			"locked", "key", "paint", "transport", "launcher" };
+
+	// The chance, out of 5, that a connector is missing.
+	private static final int MISSING_CONNECTOR = 1;
+
+	// The size of the levels and the tiles in them.
+	private final int height;
+	private final int width;
+	private final int[] weights;
+	private int noOfColours;
+	private long seed;
+
+	// What a level's solution must be like for the level to be kept.
+	private int minMoves;
+	private int maxMoves;
+	private long minStates;
+
+	// How the candidates are solved.
+	private final SolverSettings settings;
+	private int threads;
+	private long timeout;
+	private long maxCandidates;
+
+	// The number of candidates made so far.
+	private long noOfCandidates;
+
+	/**
+	 * Constructs a LevelGenerator for levels of the given size, using the
+	 * default settings: up to 3 colours, any solvable level kept, and one
+	 * candidate solved at a time with a 10 second limit.
+	 * 
+	 * @param height the number of rows in each level.
+	 * @param width the number of columns in each level.
+	 * @throws IllegalArgumentException if the levels would have fewer than 2
+	 *             tiles.
+	 */
+	public LevelGenerator(int height, int width)
+	{
+		if (height < 1 || width < 1 || height * width < 2)
+			throw new IllegalArgumentException("A level needs room for a "
+					+ "start and a finish.");
+		this.height = height;
+		this.width = width;
+		weights = DEFAULT_WEIGHTS.clone();
+		noOfColours = 3;
+		seed = 0;
+		minMoves = 0;
+		maxMoves = Integer.MAX_VALUE;
+		minStates = 0;
+		settings = new SolverSettings();
+		threads = 1;
+		timeout = 10000;
+		maxCandidates = 100000;
+		noOfCandidates = 0;
+	}
+
+	/**
+	 * Generates levels from the command line and writes them as a pack.
+	 * 
+	 * @param args the options.
+	 */
+	public static void main(String[] args)
+	{
+		System.setProperty("java.awt.headless", "true");
+		int height = 8;
+		int width = 12;
+		int count = 10;
+		File packFile = null;
+		ArrayList<String[]> options = new ArrayList<String[]>();
+		try {
+			for (int arg = 0; arg < args.length; arg += 2) {
+				if (arg + 1 >= args.length)
+					throw new IllegalArgumentException("Missing value for "
+							+ args[arg] + ".");
+				String option = args[arg];
+				String value = args[arg + 1];
+				if (option.equals("-rows"))
+					height = (int) readNumber(option, value, 1);
+				else if (option.equals("-cols"))
+					width = (int) readNumber(option, value, 1);
+				else if (option.equals("-count"))
+					count = (int) readNumber(option, value, 1);
+				else if (option.equals("-out"))
+					packFile = new File(value);
+				else
+					options.add(new String[] { option, value });
+			}
+			if (packFile == null)
+				throw new IllegalArgumentException("No pack to write.");
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			printUsage();
+			System.exit(2);
+		}
+
+		LevelGenerator generator = null;
+		try {
+			generator = new LevelGenerator(height, width);
+			for (String[] option : options)
+				generator.setOption(option[0], option[1]);
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			printUsage();
+			System.exit(2);
+		}
+		try {
+			Level[] levels = generator.generate(count);
+			writePack(levels, packFile);
+			System.out.println("Kept " + levels.length + " of "
+					+ generator.getNoOfCandidates() + " candidates.");
+			System.exit(levels.length == count ? 0 : 1);
+		} catch (Exception e) {
+			System.err.println("Could not generate the pack: " + e);
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Prints the command line options.
+	 */
+	private static void printUsage()
+	{
+		System.err.println("Usage: java -cp <classpath> level.LevelGenerator "
+				+ "-out <pack.pck> [options]");
+		System.err.println("  -rows <n>           rows in each level (8)");
+		System.err.println("  -cols <n>           columns in each level (12)");
+		System.err.println("  -count <n>          levels to keep (10)");
+		System.err.println("  -colours <n>        colours used, 1 to 7 (3)");
+		System.err.println("  -seed <n>           seed of the first candidate"
+				+ " (0)");
+		System.err.println("  -minMoves <n>       shortest solution kept (0)");
+		System.err.println("  -maxMoves <n>       longest solution kept");
+		System.err.println("  -minStates <n>      fewest states expanded by a "
+				+ "level kept (0)");
+		System.err.println("  -threads <n>        candidates solved at once "
+				+ "(1)");
+		System.err.println("  -timeout <ms>       time limit for each "
+				+ "candidate, 0 for none (10000)");
+		System.err.println("  -candidates <n>     most candidates to try "
+				+ "(100000)");
+		System.err.println("  -<kind> <n>         how often each kind of tile "
+				+ "is placed, for");
+		System.err.println("                      "
+				+ Arrays.toString(TYPE_NAMES) + " "
+				+ Arrays.toString(DEFAULT_WEIGHTS));
+	}
+
+	/**
+	 * Reads a value of an option that must be a whole number.
+	 * 
+	 * @param option the name of the option.
+	 * @param value the value given.
+	 * @param smallest the smallest value allowed.
+	 * @return the value read.
+	 * @throws IllegalArgumentException if the value is not a whole number of
+	 *             at least the smallest value.
+	 */
+	private static long readNumber(String option, String value, long smallest)
+	{
+		try {
+			long number = Long.parseLong(value);
+			if (number >= smallest)
+				return number;
+		} catch (NumberFormatException e) {
+		}
+		throw new IllegalArgumentException(option + " must be a whole number "
+				+ "of at least " + smallest + ".");
+	}
+
+	/**
+	 * Writes levels to a level pack file that the game can load.
+	 * 
+	 * @param levels the levels of the pack.
+	 * @param file the .pck file to write.
+	 * @throws IOException if the file cannot be written.
+	 */
+	public static void writePack(Level[] levels, File file) throws IOException
+	{
+		ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(
+				file));
+		try {
+			out.writeObject(levels);
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Makes a candidate level. The same index always gives the same level for
+	 * the same seed and settings. The candidate follows the level editor's
+	 * rules but may not be solvable.
+	 * 
+	 * @param index the index of the candidate.
+	 * @return the candidate level.
+	 */
+	public Level createCandidate(long index)
+	{
+		Random random = new Random(seed + index);
+		Tile[][] tiles = new Tile[height][width];
+		int totalWeight = 0;
+		for (int weight : weights)
+			totalWeight += weight;
+		for (int row = 0; row < height; row++)
+			for (int col = 0; col < width; col++)
+				tiles[row][col] = createTile(random, pickType(random,
+						totalWeight), row, col);
+
+		// Place the start and the finish on different tiles.
+		int start = random.nextInt(height * width);
+		int finish = random.nextInt(height * width - 1);
+		if (finish >= start)
+			finish++;
+		tiles[start / width][start % width] = new StartTile(
+				randomColour(random), randomConnectors(random));
+		tiles[finish / width][finish % width] = new FinishTile(
+				randomColour(random), randomConnectors(random));
+
+		// A lone transporter has nowhere to go, and keys and locks only make
+		// sense together.
+		int noOfTransports = 0;
+		boolean hasKey = false;
+		boolean hasLock = false;
+		for (Tile[] tileRow : tiles)
+			for (Tile tile : tileRow) {
+				if (tile instanceof TransportTile)
+					noOfTransports++;
+				else if (tile instanceof KeyTile)
+					hasKey = true;
+				else if (tile instanceof LockedTile)
+					hasLock = true;
+			}
+		for (int row = 0; row < height; row++)
+			for (int col = 0; col < width; col++) {
+				Tile tile = tiles[row][col];
+				if (tile instanceof TransportTile && noOfTransports == 1
+						|| tile instanceof KeyTile && !hasLock
+						|| tile instanceof LockedTile && !hasKey)
+					tiles[row][col] = new Tile(tile.getColour(),
+							tile.getConnections());
+			}
+
+		// The level is cropped to its tiles, so keep the top left corner
+		// filled so the action tiles stay where they think they are.
+		if (tiles[0][0] instanceof EmptyTile)
+			tiles[0][0] = new StaticTile(randomColour(random), new int[4]);
+		return new Level(tiles, "Generated " + (index + 1));
+	}
+
+	/**
+	 * Makes a tile of the given kind with a random colour and connectors.
+	 * 
+	 * @param random the source of randomness.
+	 * @param type the index of the kind of tile in TYPES.
+	 * @param row the row of the tile.
+	 * @param col the column of the tile.
+	 * @return the new tile.
+	 */
+	private Tile createTile(Random random, int type, int row, int col)
+	{
+		if (TYPES[type] == EmptyTile.class)
+			return new EmptyTile();
+		int colour = randomColour(random);
+		int[] connectors = randomConnectors(random);
+		if (TYPES[type] == Tile.class)
+			return new Tile(colour, connectors);
+		if (TYPES[type] == StaticTile.class)
+			return new StaticTile(colour, connectors);
+		if (TYPES[type] == LockedTile.class)
+			return new LockedTile(colour, connectors);
+		if (TYPES[type] == KeyTile.class)
+			return new KeyTile(colour, randomColour(random), connectors, row,
+					col);
+		if (TYPES[type] == PaintTile.class)
+			return new PaintTile(colour, randomColour(random), connectors, row,
+					col);
+		if (TYPES[type] == TransportTile.class)
+			return new TransportTile(colour, randomColour(random), connectors,
+					row, col);
+
+		// Launchers start facing up, so turn them to a random direction.
+		LauncherTile launcher = new LauncherTile(colour, 0, connectors, row,
+				col);
+		for (int turns = random.nextInt(4); turns > 0; turns--)
+			launcher.rotateRight();
+		return launcher;
+	}
+
+	/**
+	 * Generates levels until enough are kept or the most candidates allowed
+	 * have been tried. Candidates are solved in batches, several at a time,
+	 * and are kept in the order they were made.
+	 * 
+	 * @param count the number of levels wanted.
+	 * @return the levels kept, which may be fewer than wanted.
+	 * @throws InterruptedException if the thread is interrupted while
+	 *             solving.
+	 */
+	public Level[] generate(int count) throws InterruptedException
+	{
+		ArrayList<Level> kept = new ArrayList<Level>();
+		int batchSize = Math.max(threads * 4, 8);
+		while (kept.size() < count && noOfCandidates < maxCandidates) {
+			// Only candidates whose finish could ever be reached are worth
+			// solving.
+			ArrayList<Level> batch = new ArrayList<Level>();
+			while (batch.size() < batchSize && noOfCandidates < maxCandidates) {
+				Level candidate = createCandidate(noOfCandidates++);
+				if (new LevelAnalysis(candidate).isFinishReachable())
+					batch.add(candidate);
+			}
+			Level[] candidates = batch.toArray(new Level[batch.size()]);
+			PackSolver packSolver = new PackSolver(candidates, settings);
+			packSolver.solve(threads, timeout);
+			for (int level = 0; level < candidates.length
+					&& kept.size() < count; level++)
+				if (isWanted(packSolver, level))
+					kept.add(candidates[level]);
+		}
+		return kept.toArray(new Level[kept.size()]);
+	}
+
+	/**
+	 * Returns the number of candidates made so far.
+	 * 
+	 * @return the number of candidates.
+	 */
+	public long getNoOfCandidates()
+	{
+		return noOfCandidates;
+	}
+
+	/**
+	 * Returns the settings used to solve the candidates, which can be changed
+	 * before generating.
+	 * 
+	 * @return the solver settings.
+	 */
+	public SolverSettings getSettings()
+	{
+		return settings;
+	}
+
+	/**
+	 * Checks whether a solved candidate meets the targets for a level kept.
+	 * 
+	 * @param packSolver the solver that solved the candidates.
+	 * @param level the index of the candidate.
+	 * @return true if the level was solved within the move range and took at
+	 *         least the fewest states wanted, otherwise false.
+	 */
+	private boolean isWanted(PackSolver packSolver, int level)
+	{
+		if (packSolver.getStatus(level) != PackSolver.SOLVED)
+			return false;
+		int moves = packSolver.getSolution(level).getNoOfMoves();
+		long states = packSolver.getProgress(level).getStatesExpanded();
+		return moves >= minMoves && moves <= maxMoves && states >= minStates;
+	}
+
+	/**
+	 * Picks a kind of tile at random, weighted by how often each is wanted.
+	 * 
+	 * @param random the source of randomness.
+	 * @param totalWeight the sum of the weights.
+	 * @return the index of the kind of tile in TYPES.
+	 */
+	private int pickType(Random random, int totalWeight)
+	{
+		int pick = random.nextInt(totalWeight);
+		int type = 0;
+		while (pick >= weights[type])
+			pick -= weights[type++];
+		return type;
+	}
+
+	/**
+	 * Picks a colour at random.
+	 * 
+	 * @param random the source of randomness.
+	 * @return a colour from 1 to the number of colours.
+	 */
+	private int randomColour(Random random)
+	{
+		return 1 + random.nextInt(noOfColours);
+	}
+
+	/**
+	 * Picks connectors at random, with some of them missing.
+	 * 
+	 * @param random the source of randomness.
+	 * @return the colours of the four connectors, with 0 for none.
+	 */
+	private int[] randomConnectors(Random random)
+	{
+		int[] connectors = new int[4];
+		for (int side = 0; side < connectors.length; side++)
+			if (random.nextInt(5) >= MISSING_CONNECTOR)
+				connectors[side] = randomColour(random);
+		return connectors;
+	}
+
+	/**
+	 * Sets the number of colours used for tiles and connectors.
+	 * 
+	 * @param noOfColours the number of colours. Precondition: 1 <= noOfColours
+	 *            <= 7.
+	 */
+	public void setColours(int noOfColours)
+	{
+		this.noOfColours = noOfColours;
+	}
+
+	/**
+	 * Sets the most candidates to make before giving up.
+	 * 
+	 * @param maxCandidates the most candidates to try.
+	 */
+	public void setMaxCandidates(long maxCandidates)
+	{
+		this.maxCandidates = maxCandidates;
+	}
+
+	/**
+	 * Sets the fewest states the solver must expand for a level to be kept,
+	 * as a measure of how hard the level is to search.
+	 * 
+	 * @param minStates the fewest states expanded.
+	 */
+	public void setMinStates(long minStates)
+	{
+		this.minStates = minStates;
+	}
+
+	/**
+	 * Sets the range of solution lengths, in moves, of the levels kept.
+	 * 
+	 * @param minMoves the shortest solution kept.
+	 * @param maxMoves the longest solution kept.
+	 */
+	public void setMoveRange(int minMoves, int maxMoves)
+	{
+		this.minMoves = minMoves;
+		this.maxMoves = maxMoves;
+	}
+
+	/**
+	 * Sets one of the command line options.
+	 * 
+	 * @param option the name of the option, starting with a dash.
+	 * @param value the value of the option.
+	 * @throws IllegalArgumentException if the option or its value is not
+	 *             valid.
+	 */
+	public void setOption(String option, String value)
+	{
+		int type = Arrays.asList(TYPE_NAMES).indexOf(option.substring(1));
+		if (type >= 0)
+			weights[type] = (int) readNumber(option, value, 0);
+		else if (option.equals("-colours")) {
+			noOfColours = (int) readNumber(option, value, 1);
+			if (noOfColours > 7)
+				throw new IllegalArgumentException("There are only 7 "
+						+ "colours.");
+		} else if (option.equals("-seed"))
+			seed = readNumber(option, value, Long.MIN_VALUE);
+		else if (option.equals("-minMoves"))
+			minMoves = (int) readNumber(option, value, 0);
+		else if (option.equals("-maxMoves"))
+			maxMoves = (int) readNumber(option, value, 0);
+		else if (option.equals("-minStates"))
+			minStates = readNumber(option, value, 0);
+		else if (option.equals("-threads"))
+			threads = (int) readNumber(option, value, 1);
+		else if (option.equals("-timeout"))
+			timeout = readNumber(option, value, 0);
+		else if (option.equals("-candidates"))
+			maxCandidates = readNumber(option, value, 1);
+		else
+			throw new IllegalArgumentException("Unknown option " + option
+					+ ".");
+		int totalWeight = 0;
+		for (int weight : weights)
+			totalWeight += weight;
+		if (totalWeight == 0)
+			throw new IllegalArgumentException("Some kind of tile must be "
+					+ "placed.");
+	}
+
+	/**
+	 * Sets the seed that the candidates are made from.
+	 * 
+	 * @param seed the seed.
+	 */
+	public void setSeed(long seed)
+	{
+		this.seed = seed;
+	}
+
+	/**
+	 * Sets how many candidates are solved at once and for how long.
+	 * 
+	 * @param threads the number of candidates solved at once. Precondition:
+	 *            threads >= 1.
+	 * @param timeout the most milliseconds to spend on each candidate, or 0
+	 *            for no limit.
+	 */
+	public void setThreads(int threads, long timeout)
+	{
+		this.threads = threads;
+		this.timeout = timeout;
+	}
+
+	/**
+	 * Sets how often a kind of tile is placed, compared to the others.
+	 * 
+	 * @param type the class of the kind of tile.
+	 * @param weight how often it is placed. Precondition: weight >= 0, and
+	 *            some kind of tile keeps a weight above 0.
+	 * @throws IllegalArgumentException if tiles of that kind are not placed
+	 *             at random.
+	 */
+	public void setWeight(Class<? extends Tile> type, int weight)
+	{
+		int index = Arrays.asList(TYPES).indexOf(type);
+		if (index < 0)
+			throw new IllegalArgumentException(type.getSimpleName()
+					+ " tiles are not placed at random.");
+		weights[index] = weight;
+	}
+}
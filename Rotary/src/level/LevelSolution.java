@@ -1,9 +1,13 @@
 package level;
 
 import java.awt.Point;
-import java.util.HashSet;
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.ListIterator;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Stores the solution to a level.
@@ -19,9 +23,24 @@ public class LevelSolution extends Level
 	private LinkedList<Integer> moves;
 
 	// Stores what the integer moves mean.
-	private final static int ROTATE_LEFT = 4;
-	private final static int ROTATE_RIGHT = 5;
-	private final static int ACTIVATE = 6;
+	final static int ROTATE_LEFT = 4;
+	final static int ROTATE_RIGHT = 5;
+	final static int ACTIVATE = 6;
+
+	// Actions are coded by the cell they are taken on and the action taken,
+	// which is stored in the lowest bits.
+	private final static int ACTION_BITS = 3;
+	private final static int ACTION_MASK = (1 << ACTION_BITS) - 1;
+
+	// The number of states the arrays recording how each state was reached
+	// start with room for.
+	private final static int INITIAL_STATES = 1024;
+
+	// The number of states expanded between merges in a breadth first search.
+	private final static int BATCH_SIZE = 4096;
+
+	// Signals that a depth first search found a solution.
+	private final static int SOLVED = -1;
 
 	/**
 	 * Returns the array of moves which solves the current level in the fewest
@@ -33,160 +52,717 @@ public class LevelSolution extends Level
 	 */
 	public static LinkedList<Integer> findLevelSolution(Level level)
 	{
+		return findLevelSolution(level, new SolverSettings(),
+				new SolverProgress());
+	}
 
-		// Keep track of which levels were already visited.
-		HashSet<Level> visitedLevels = new HashSet<Level>();
+	/**
+	 * Returns the array of moves which solves the current level in the fewest
+	 * moves, using the given settings.
+	 * 
+	 * @param level the level to be solved Postcondition: the state of level is
+	 *            unchanged.
+	 * @param settings the settings to solve with.
+	 * @return a LinkedList holding Integers which represent the moves.
+	 * @throws IllegalStateException if the solver's memory limit is reached
+	 *             before a solution is found, or if an external search cannot
+	 *             use its scratch files.
+	 */
+	public static LinkedList<Integer> findLevelSolution(Level level,
+			SolverSettings settings)
+	{
+		return findLevelSolution(level, settings, new SolverProgress());
+	}
+
+	/**
+	 * Returns the array of moves which solves the current level in the fewest
+	 * moves, using the given settings and reporting the search's progress.
+	 * 
+	 * @param level the level to be solved Postcondition: the state of level is
+	 *            unchanged.
+	 * @param settings the settings to solve with.
+	 * @param progress the progress to update while searching.
+	 * @return a LinkedList holding Integers which represent the moves.
+	 * @throws IllegalStateException if the solver's memory limit is reached
+	 *             before a solution is found, or if an external search cannot
+	 *             use its scratch files.
+	 * @throws CancellationException if the search is cancelled, or the thread
+	 *             running it is interrupted.
+	 */
+	public static LinkedList<Integer> findLevelSolution(Level level,
+			SolverSettings settings, SolverProgress progress)
+	{
+		progress.start();
+
+		// Reject levels whose FinishTiles can never be reached without
+		// searching at all.
+		LevelAnalysis analysis = new LevelAnalysis(level);
+		if (!analysis.isFinishReachable())
+			return null;
+
+		// Encode the level so that each state only stores what can change.
+		PackedLevel packedLevel = new PackedLevel(level, analysis);
+		PackedLevel.State start = packedLevel.encode(level);
+
+		// A level the player can already walk through needs no actions.
+		// Otherwise, solve levels with no action tiles by linear algebra if
+		// asked to, and search for the actions that solve any other level.
+		LinkedList<Integer> codes = null;
+		if (level.canWalkToFinish())
+			codes = new LinkedList<Integer>();
+		else if (settings.getStrategy() == SolverSettings.ALGEBRAIC
+				&& RotationSystem.isRotationOnly(level))
+			codes = algebraicSearch(packedLevel, start, new RotationSystem(
+					level, analysis).findRotations(), progress);
+		if (codes == null)
+			codes = searchStates(packedLevel, start, settings, progress);
 
-		// Store the levels waiting to be processed.
-		LinkedList<Level> currentLevelQueue = new LinkedList<Level>();
-		LinkedList<LinkedList<Integer>> currentMoveQueue = new LinkedList<LinkedList<Integer>>();
-		currentLevelQueue.add(new Level(level));
-		currentMoveQueue.add(new LinkedList<Integer>());
+		// If no solution was found return null.
+		if (codes == null)
+			return null;
+
+		/*
+		 * The moves found from the actions must solve the level. However,
+		 * they might not be the absolute shortest number of
+		 * non-activation/rotation moves, so a shorter version is now found.
+		 */
+		return getEquivalentMoveSequence(new Level(level),
+				getMoves(packedLevel, start, codes));
+	}
 
-		// Examine all the states in the queue.
-		while (!currentLevelQueue.isEmpty()) {
-			LinkedList<Level> nextLevelQueue = new LinkedList<Level>();
-			LinkedList<LinkedList<Integer>> nextMoveQueue = new LinkedList<LinkedList<Integer>>();
+	/**
+	 * Carries out sets of rotations found by linear algebra, checking that the
+	 * player can reach each cell to rotate on. Since turns add up the same in
+	 * any order, the rotations on each cell are made all at once, on the
+	 * first cell the player can walk to that still needs rotating, leaving
+	 * the cell the route to a FinishTile starts from until last.
+	 * 
+	 * @param packedLevel the layout of the level being solved.
+	 * @param start the starting state of the level.
+	 * @param rotations the sets of rotations to try.
+	 * @param progress the progress to update while searching.
+	 * @return the codes of the actions of the first set of rotations that
+	 *         solves the level, or null if none of them do.
+	 */
+	private static LinkedList<Integer> algebraicSearch(
+			PackedLevel packedLevel, PackedLevel.State start,
+			List<RotationSystem.Rotations> rotations, SolverProgress progress)
+	{
+		RegionBoard region = new RegionBoard(packedLevel.getHeight(),
+				packedLevel.getWidth());
+		for (RotationSystem.Rotations rotation : rotations) {
+			progress.checkCancelled();
+			progress.expanded(1);
+			LinkedList<Integer> codes = new LinkedList<Integer>();
+			PackedLevel.State state = start;
+			int[] left = rotation.leftTurns.clone();
+			int cell;
+			do {
+				packedLevel.fillRegion(state, region);
+				cell = region.first();
+				while (cell >= 0 && (left[cell] == 0 || cell == rotation.last))
+					cell = region.next(cell);
+				if (cell < 0 && left[rotation.last] != 0
+						&& region.contains(rotation.last))
+					cell = rotation.last;
+
+				// Three left rotations equal one right rotation.
+				if (cell >= 0 && left[cell] == 3) {
+					state = packedLevel.rotateRight(state, cell);
+					codes.add(cell << ACTION_BITS | ROTATE_RIGHT);
+					left[cell] = 0;
+				} else if (cell >= 0)
+					for (; left[cell] > 0; left[cell]--) {
+						state = packedLevel.rotateLeft(state, cell);
+						codes.add(cell << ACTION_BITS | ROTATE_LEFT);
+					}
+			} while (cell >= 0);
+
+			// Keep the rotations if every one was made and the player can
+			// then walk to a FinishTile.
+			boolean done = true;
+			for (int turns : left)
+				if (turns != 0)
+					done = false;
+			if (done && region.reachesTarget())
+				return codes;
+		}
+		return null;
+	}
 
-			while (!currentLevelQueue.isEmpty()) {
-				Level currentLevel = currentLevelQueue.remove();
-				LinkedList<Integer> moves = currentMoveQueue.remove();
-				boolean[][] visited = new boolean[level.getHeight()][level
-						.getWidth()];
+	/**
+	 * Searches for the fewest actions that solve a level, expanding the states
+	 * with the smallest lower bound on their total number of actions first.
+	 * States with equal bounds are expanded newest first, which heads straight
+	 * for a solution once the bound is tight.
+	 * 
+	 * @param packedLevel the layout of the level being solved.
+	 * @param start the starting state of the level.
+	 * @param visitedLevels an empty table to record visited states in.
+	 * @param progress the progress to update while searching.
+	 * @return the codes of the actions that solve the level, or null if it
+	 *         cannot be solved.
+	 */
+	private static LinkedList<Integer> aStarSearch(PackedLevel packedLevel,
+			PackedLevel.State start, StateTable visitedLevels,
+			SolverProgress progress)
+	{
+		int estimate = packedLevel.estimateActions(start);
+		if (estimate < 0)
+			return null;
+
+		// Store the number of actions taken to reach each state, a lower bound
+		// on the number left, and the state and action it was reached by, by
+		// the state's index.
+		int[] costs = new int[INITIAL_STATES];
+		int[] estimates = new int[INITIAL_STATES];
+		int[] parents = new int[INITIAL_STATES];
+		int[] codes = new int[INITIAL_STATES];
+		visitedLevels.add(start);
+		estimates[0] = estimate;
+		parents[0] = -1;
+		RegionBoard region = new RegionBoard(packedLevel.getHeight(),
+				packedLevel.getWidth());
+
+		// Keep a stack of the indexes of states waiting to be expanded for
+		// each total, and the number of indexes in each.
+		int[][] openLevels = new int[estimate + 1][];
+		int[] openSizes = new int[estimate + 1];
+		openLevels[estimate] = new int[] { 0 };
+		openSizes[estimate] = 1;
+		long openSize = 1;
+
+		// Examine the states in order of their totals.
+		for (int total = estimate; total < openLevels.length; total++) {
+			while (openSizes[total] > 0) {
+				int index = openLevels[total][--openSizes[total]];
+				openSize--;
+
+				// Skip states that were reached more cheaply since being
+				// added to this stack.
+				if (costs[index] + estimates[index] != total)
+					continue;
+				progress.checkCancelled();
+				progress.expanded(1);
+				progress.setLayer(total, openSize);
+				progress.setMemoryUsage(visitedLevels.getMemoryUsage(),
+						visitedLevels.size());
+				PackedLevel.State currentLevel = visitedLevels.get(index);
+				LinkedList<PackedLevel.State> nextLevels = new LinkedList<PackedLevel.State>();
+				LinkedList<Integer> nextCodes = new LinkedList<Integer>();
 
 				// Check to see if an end tile can be reached from here,
 				// signaling that the level is solved.
-				if (floodFill(currentLevel, visited, moves, nextLevelQueue,
-						nextMoveQueue, visitedLevels)) {
-					// Free up some memory.
-					currentLevelQueue = null;
-					currentMoveQueue = null;
-					nextLevelQueue = null;
-					nextMoveQueue = null;
-
-					/*
-					 * The moves currently stored must be the moves that solve
-					 * the level However, they might not be the absolute
-					 * shortest number of non-activation/rotation moves, so a
-					 * shorter version is now found.
-					 */
-					return getEquivalentMoveSequence(new Level(level), moves);
+				if (floodFill(packedLevel, currentLevel, region,
+						getLastCode(parents, codes, index, 1),
+						getLastCode(parents, codes, index, 2), nextLevels,
+						nextCodes))
+					return getCodes(parents, codes, index);
+
+				// Record each new state, or the cheaper way to reach an old
+				// one.
+				int cost = costs[index] + 1;
+				while (!nextLevels.isEmpty()) {
+					PackedLevel.State next = nextLevels.remove();
+					int code = nextCodes.remove();
+					int nextIndex = visitedLevels.indexOf(next);
+					if (nextIndex < 0) {
+						visitedLevels.add(next);
+						nextIndex = visitedLevels.size() - 1;
+						if (nextIndex == costs.length) {
+							costs = Arrays.copyOf(costs, nextIndex * 2);
+							estimates = Arrays.copyOf(estimates, nextIndex * 2);
+							parents = Arrays.copyOf(parents, nextIndex * 2);
+							codes = Arrays.copyOf(codes, nextIndex * 2);
+						}
+						estimates[nextIndex] = packedLevel
+								.estimateActions(next);
+					} else if (cost >= costs[nextIndex])
+						continue;
+
+					// States that can never be solved are never expanded.
+					if (estimates[nextIndex] < 0)
+						continue;
+					costs[nextIndex] = cost;
+					parents[nextIndex] = index;
+					codes[nextIndex] = code;
+					int nextTotal = cost + estimates[nextIndex];
+					if (nextTotal >= openLevels.length) {
+						int length = Math.max(nextTotal + 1,
+								openLevels.length * 2);
+						openLevels = Arrays.copyOf(openLevels, length);
+						openSizes = Arrays.copyOf(openSizes, length);
+					}
+					int[] openStack = openLevels[nextTotal];
+					if (openStack == null || openSizes[nextTotal]
+							== openStack.length) {
+						openStack = openStack == null ? new int[4] : Arrays
+								.copyOf(openStack, openStack.length * 2);
+						openLevels[nextTotal] = openStack;
+					}
+					openStack[openSizes[nextTotal]++] = nextIndex;
+					openSize++;
 				}
 			}
-
-			// Reassign the queues.
-			currentLevelQueue = nextLevelQueue;
-			currentMoveQueue = nextMoveQueue;
 		}
-
-		// If no solution was found return null.
 		return null;
 	}
 
 	/**
-	 * Performs a flood fill on the current Level to find all reachable
-	 * locations.
+	 * Searches for the fewest actions that solve a level, one layer of states
+	 * at a time. Each layer is the range of states added to the table while
+	 * expanding the layer before it. Layers are expanded in batches, which can
+	 * be split across the threads of a pool, and then merged in order so the
+	 * solution found does not depend on the number of threads.
 	 * 
-	 * @param currentLevel the level to be examined.
-	 * @param visited a list of all the tiles visited.
-	 * @param moves a list of all the moves made so far.
-	 * @param nextLevelQueue the queue to add all levels generated to.
-	 * @param nextMoveQueue the queue to add all the moves generated to.
-	 * @param visitedLevels a set containing all levels that have already been
-	 *            visited.
-	 * @return true if the player is currently on a FinishTile, otherwise false.
+	 * @param packedLevel the layout of the level being solved.
+	 * @param start the starting state of the level.
+	 * @param visitedLevels an empty table to record visited states in.
+	 * @param pool the pool to expand batches in, or null to use this thread.
+	 * @param progress the progress to update while searching.
+	 * @return the codes of the actions that solve the level, or null if it
+	 *         cannot be solved.
 	 */
-	private static boolean floodFill(Level currentLevel, boolean[][] visited,
-			LinkedList<Integer> moves, LinkedList<Level> nextLevelQueue,
-			LinkedList<LinkedList<Integer>> nextMoveQueue,
-			HashSet<Level> visitedLevels)
+	private static LinkedList<Integer> breadthFirstSearch(
+			PackedLevel packedLevel, PackedLevel.State start,
+			StateTable visitedLevels, ForkJoinPool pool,
+			SolverProgress progress)
 	{
-		// Make sure this spot was not already visited.
-		Point point = currentLevel.getPlayerPosition();
-		if (visited[point.y][point.x])
-			return false;
+		visitedLevels.add(start);
+		int layerStart = 0;
+		int depth = 0;
+
+		// Store the state and action each state was reached by, by the
+		// state's index.
+		int[] parents = new int[INITIAL_STATES];
+		int[] codes = new int[INITIAL_STATES];
+		parents[0] = -1;
+
+		// Examine all the states in the current layer.
+		while (layerStart < visitedLevels.size()) {
+			int layerEnd = visitedLevels.size();
+			progress.setLayer(depth, layerEnd - layerStart);
+
+			for (int batchStart = layerStart; batchStart < layerEnd;
+					batchStart += BATCH_SIZE) {
+				progress.checkCancelled();
+				int batchEnd = Math.min(batchStart + BATCH_SIZE, layerEnd);
+				LayerExpansion batch = new LayerExpansion(packedLevel,
+						visitedLevels, parents, codes, batchStart, batchEnd,
+						pool != null);
+				if (pool == null)
+					batch.invoke();
+				else
+					pool.invoke(batch);
+
+				// Return the first solution in the batch, or record the
+				// states that have not been seen before.
+				for (int index = batchStart; index < batchEnd; index++) {
+					if (batch.isSolved(index))
+						return getCodes(parents, codes, index);
+					LinkedList<PackedLevel.State> nextLevels = batch
+							.getNextLevels(index);
+					LinkedList<Integer> nextCodes = batch.getNextCodes(index);
+					while (!nextLevels.isEmpty()) {
+						int code = nextCodes.remove();
+						if (visitedLevels.add(nextLevels.remove())) {
+							int nextIndex = visitedLevels.size() - 1;
+							if (nextIndex == parents.length) {
+								parents = Arrays.copyOf(parents, nextIndex * 2);
+								codes = Arrays.copyOf(codes, nextIndex * 2);
+							}
+							parents[nextIndex] = index;
+							codes[nextIndex] = code;
+						}
+					}
+				}
+				progress.expanded(batchEnd - batchStart);
+				progress.setMemoryUsage(visitedLevels.getMemoryUsage(),
+						visitedLevels.size());
+			}
 
-		// Return true if the current level is complete.
-		if (currentLevel.levelComplete())
-			return true;
+			// Move on to the next layer.
+			layerStart = layerEnd;
+			depth++;
+		}
+		return null;
+	}
 
-		// Mark this tile as visited.
-		visited[point.y][point.x] = true;
-
-		// Try to reach a FinishTile in all directions.
-		if (currentLevel.canMoveUp()) {
-			currentLevel.moveUp();
-			moves.add(Tile.UP);
-			if (floodFill(currentLevel, visited, moves, nextLevelQueue,
-					nextMoveQueue, visitedLevels))
-				return true;
-			moves.removeLast();
-			currentLevel.moveDown();
+	/**
+	 * Searches for a solution by depth first search, cutting off any state
+	 * whose lower bound on its total number of actions is over the given
+	 * bound.
+	 * 
+	 * @param packedLevel the layout of the level being solved.
+	 * @param currentLevel the state to search from.
+	 * @param cost the number of actions leading to this state.
+	 * @param lastCode the code of the action this state was reached by, or -1
+	 *            for the start.
+	 * @param previousCode the code of the action before that, or -1 if there
+	 *            was none.
+	 * @param bound the largest total number of actions to search.
+	 * @param table the table of states already searched.
+	 * @param region the board to reuse for finding the cells the player can
+	 *            reach.
+	 * @param solution the list to add the codes of the solution's actions
+	 *            to, if found.
+	 * @param progress the progress to update while searching.
+	 * @return SOLVED if a solution was found, otherwise the smallest total
+	 *         number of actions over the bound that was cut off, or
+	 *         Integer.MAX_VALUE if nothing was cut off.
+	 */
+	private static int depthFirstSearch(PackedLevel packedLevel,
+			PackedLevel.State currentLevel, int cost, int lastCode,
+			int previousCode, int bound, TranspositionTable table,
+			RegionBoard region, LinkedList<Integer> solution,
+			SolverProgress progress)
+	{
+		progress.checkCancelled();
+		progress.expanded(1);
+		progress.setLayer(bound, cost);
+		LinkedList<PackedLevel.State> nextLevels = new LinkedList<PackedLevel.State>();
+		LinkedList<Integer> nextCodes = new LinkedList<Integer>();
+
+		// Check to see if an end tile can be reached from here, signaling that
+		// the level is solved.
+		if (floodFill(packedLevel, currentLevel, region, lastCode,
+				previousCode, nextLevels, nextCodes))
+			return SOLVED;
+
+		// Search each state within the bound that has not already been
+		// searched as cheaply.
+		int nextBound = Integer.MAX_VALUE;
+		while (!nextLevels.isEmpty()) {
+			PackedLevel.State next = nextLevels.remove();
+			int code = nextCodes.remove();
+			if (table.isSearched(next, cost + 1, bound))
+				continue;
+			int estimate = packedLevel.estimateActions(next);
+			if (estimate < 0)
+				continue;
+			int total = cost + 1 + estimate;
+			if (total > bound) {
+				nextBound = Math.min(nextBound, total);
+				table.recordCutOff(next, bound);
+			} else {
+				table.record(next, cost + 1, bound);
+				int result = depthFirstSearch(packedLevel, next, cost + 1,
+						code, lastCode, bound, table, region, solution,
+						progress);
+				if (result == SOLVED) {
+					solution.addFirst(code);
+					return SOLVED;
+				}
+				nextBound = Math.min(nextBound, result);
+			}
 		}
-		if (currentLevel.canMoveRight()) {
-			currentLevel.moveRight();
-			moves.add(Tile.RIGHT);
-			if (floodFill(currentLevel, visited, moves, nextLevelQueue,
-					nextMoveQueue, visitedLevels))
-				return true;
-			moves.removeLast();
-			currentLevel.moveLeft();
+		return nextBound;
+	}
+
+	/**
+	 * Searches for the fewest actions that solve a level by iterative
+	 * deepening A*. Each iteration is a depth first search cut off at a
+	 * bound on the total number of actions, which grows until a solution is
+	 * found. Only the current path is kept in memory, along with a table of
+	 * recently searched states to avoid searching them again.
+	 * 
+	 * @param packedLevel the layout of the level being solved.
+	 * @param start the starting state of the level.
+	 * @param table an empty table to record searched states in.
+	 * @param progress the progress to update while searching.
+	 * @return the codes of the actions that solve the level, or null if it
+	 *         cannot be solved.
+	 */
+	private static LinkedList<Integer> iterativeDeepeningSearch(
+			PackedLevel packedLevel, PackedLevel.State start,
+			TranspositionTable table, SolverProgress progress)
+	{
+		LinkedList<Integer> solution = new LinkedList<Integer>();
+		RegionBoard region = new RegionBoard(packedLevel.getHeight(),
+				packedLevel.getWidth());
+		progress.setMemoryUsage(table.getMemoryUsage(), table.size());
+		int bound = packedLevel.estimateActions(start);
+		while (bound >= 0 && bound < Integer.MAX_VALUE) {
+			table.record(start, 0, bound);
+			int nextBound = depthFirstSearch(packedLevel, start, 0, -1, -1,
+					bound, table, region, solution, progress);
+			if (nextBound == SOLVED)
+				return solution;
+
+			// Stop once every state that can be reached has been searched.
+			if (table.isClosed(bound))
+				return null;
+			bound = nextBound;
 		}
-		if (currentLevel.canMoveDown()) {
-			currentLevel.moveDown();
-			moves.add(Tile.DOWN);
-			if (floodFill(currentLevel, visited, moves, nextLevelQueue,
-					nextMoveQueue, visitedLevels))
-				return true;
-			moves.removeLast();
-			currentLevel.moveUp();
+		return null;
+	}
+
+	/**
+	 * Finds every cell the player can walk to in the current state, and the
+	 * states reached by each action they can take on those cells. The cells
+	 * are found a row at a time on a bitboard rather than by recursion, so it
+	 * is fast and safe on levels of any size.
+	 * 
+	 * @param packedLevel the layout of the level being solved.
+	 * @param currentLevel the state to be examined.
+	 * @param region the board to reuse for finding the cells.
+	 * @param lastCode the code of the action the state was reached by, or -1
+	 *            if it is not known.
+	 * @param previousCode the code of the action before that, or -1 if it is
+	 *            not known.
+	 * @param nextLevels the list to add all states generated to.
+	 * @param nextCodes the list to add the codes of the actions leading to
+	 *            each generated state to.
+	 * @return true if the player can walk to a FinishTile, otherwise false.
+	 */
+	static boolean floodFill(PackedLevel packedLevel,
+			PackedLevel.State currentLevel, RegionBoard region,
+			int lastCode, int previousCode,
+			LinkedList<PackedLevel.State> nextLevels,
+			LinkedList<Integer> nextCodes)
+	{
+		// Find every cell, returning true if the level can be completed.
+		packedLevel.fillRegion(currentLevel, region);
+		if (region.reachesTarget())
+			return true;
+
+		// Change the state by activating and rotating each tile reached and
+		// adding it to the lists.
+		int first = nextLevels.size();
+		for (int cell = region.first(); cell >= 0; cell = region.next(cell)) {
+			if (packedLevel.canActivate(currentLevel, cell))
+				addSuccessor(packedLevel.activate(currentLevel, cell), cell,
+						ACTIVATE, nextLevels, nextCodes);
+			if (packedLevel.canRotate(currentLevel, cell)) {
+				// Four turns the same way undo each other, as does a turn back
+				// the other way, and two right turns equal two left turns.
+				// Only one left, two lefts or one right are tried in a row on
+				// a cell.
+				int left = cell << ACTION_BITS | ROTATE_LEFT;
+				int right = cell << ACTION_BITS | ROTATE_RIGHT;
+				if (lastCode != right
+						&& (lastCode != left || previousCode != left))
+					addSuccessor(packedLevel.rotateLeft(currentLevel, cell),
+							cell, ROTATE_LEFT, nextLevels, nextCodes);
+				if (lastCode != left && lastCode != right)
+					addSuccessor(packedLevel.rotateRight(currentLevel, cell),
+							cell, ROTATE_RIGHT, nextLevels, nextCodes);
+			}
 		}
-		if (currentLevel.canMoveLeft()) {
-			currentLevel.moveLeft();
-			moves.add(Tile.LEFT);
-			if (floodFill(currentLevel, visited, moves, nextLevelQueue,
-					nextMoveQueue, visitedLevels))
-				return true;
-			moves.removeLast();
-			currentLevel.moveRight();
+
+		// Move the player in each new state to the start of their region,
+		// now that the cells reached are no longer needed.
+		ListIterator<PackedLevel.State> nextLevel = nextLevels
+				.listIterator(first);
+		while (nextLevel.hasNext())
+			nextLevel.set(moveToRegionStart(packedLevel, nextLevel.next(),
+					region));
+		return false;
+	}
+
+	/**
+	 * Adds a state reached by an action to the lists of generated states.
+	 * 
+	 * @param next the state reached by the action.
+	 * @param cell the cell the action was taken on.
+	 * @param action the action taken.
+	 * @param nextLevels the list to add the state to.
+	 * @param nextCodes the list to add the code of the action to.
+	 */
+	private static void addSuccessor(PackedLevel.State next, int cell,
+			int action, LinkedList<PackedLevel.State> nextLevels,
+			LinkedList<Integer> nextCodes)
+	{
+		nextLevels.add(next);
+		nextCodes.add(cell << ACTION_BITS | action);
+	}
+
+	/**
+	 * Follows the states a state was reached from back to the start, finding
+	 * the actions taken along the way.
+	 * 
+	 * @param parents the index of the state each state was reached from, or
+	 *            -1 for the start.
+	 * @param codes the code of the action each state was reached by.
+	 * @param index the index of the state to find the actions leading to.
+	 * @return the codes of the actions from the start to the state.
+	 */
+	private static LinkedList<Integer> getCodes(int[] parents, int[] codes,
+			int index)
+	{
+		LinkedList<Integer> path = new LinkedList<Integer>();
+		for (; parents[index] >= 0; index = parents[index])
+			path.addFirst(codes[index]);
+		return path;
+	}
+
+	/**
+	 * Finds the code of an action taken on the way to a state.
+	 * 
+	 * @param parents the index of the state each state was reached from, or
+	 *            -1 for the start.
+	 * @param codes the code of the action each state was reached by.
+	 * @param index the index of the state.
+	 * @param steps how many actions back to look, where 1 is the action the
+	 *            state was reached by.
+	 * @return the code of the action, or -1 if the state was reached by fewer
+	 *         actions.
+	 */
+	static int getLastCode(int[] parents, int[] codes, int index, int steps)
+	{
+		for (; steps > 1 && index >= 0; steps--)
+			index = parents[index];
+		if (index < 0 || parents[index] < 0)
+			return -1;
+		return codes[index];
+	}
+
+	/**
+	 * Turns the actions that solve a level into moves, walking the player to
+	 * the cell of each action and finally to a FinishTile.
+	 * 
+	 * @param packedLevel the layout of the level being solved.
+	 * @param start the starting state of the level.
+	 * @param codes the codes of the actions that solve the level.
+	 * @return the moves that solve the level.
+	 */
+	private static LinkedList<Integer> getMoves(PackedLevel packedLevel,
+			PackedLevel.State start, List<Integer> codes)
+	{
+		LinkedList<Integer> moves = new LinkedList<Integer>();
+		Reachability reached = new Reachability(packedLevel.getHeight(),
+				packedLevel.getWidth());
+		PackedLevel.State state = start;
+		for (int code : codes) {
+			int cell = code >>> ACTION_BITS;
+			int action = code & ACTION_MASK;
+			state = walkTo(packedLevel, state, cell, reached, moves);
+			switch (action) {
+			case ROTATE_LEFT:
+				state = packedLevel.rotateLeft(state, cell);
+				break;
+			case ROTATE_RIGHT:
+				state = packedLevel.rotateRight(state, cell);
+				break;
+			case ACTIVATE:
+				state = packedLevel.activate(state, cell);
+				break;
+			}
+			moves.add(action);
 		}
+		walkTo(packedLevel, state, -1, reached, moves);
+		return moves;
+	}
+
+	/**
+	 * Moves the player to the smallest cell they can walk to. Every state
+	 * with the same tiles and the player somewhere in the same region has the
+	 * same moves available, so this lets them all be stored as one state.
+	 * 
+	 * @param packedLevel the layout of the level being solved.
+	 * @param state the state to move the player in.
+	 * @param region the board to reuse for finding the region.
+	 * @return the state with the player moved.
+	 */
+	private static PackedLevel.State moveToRegionStart(
+			PackedLevel packedLevel, PackedLevel.State state,
+			RegionBoard region)
+	{
+		packedLevel.fillRegion(state, region);
+		int smallest = region.first();
+		if (smallest == packedLevel.getPlayer(state))
+			return state;
+		return packedLevel.moveTo(state, smallest);
+	}
 
-		// Change the state by activating and rotating this tile and adding it
-		// to the queue.
-		if (currentLevel.canActivate()) {
-			Level next = new Level(currentLevel);
-			next.activate();
-			if (visitedLevels.add(next)) {
-				nextLevelQueue.add(next);
-				LinkedList<Integer> newMoves = new LinkedList<Integer>(moves);
-				newMoves.add(LevelSolution.ACTIVATE);
-				nextMoveQueue.add(newMoves);
+	/**
+	 * Searches the states of a level for the actions that solve it, keeping
+	 * track of which states were already visited.
+	 * 
+	 * @param packedLevel the layout of the level being solved.
+	 * @param start the starting state of the level.
+	 * @param settings the settings to search with.
+	 * @param progress the progress to update while searching.
+	 * @return the codes of the actions that solve the level, or null if it
+	 *         cannot be solved.
+	 */
+	private static LinkedList<Integer> searchStates(PackedLevel packedLevel,
+			PackedLevel.State start, SolverSettings settings,
+			SolverProgress progress)
+	{
+		int stateWords = packedLevel.getStateWords();
+		if (settings.getStrategy() == SolverSettings.ITERATIVE_DEEPENING)
+			return iterativeDeepeningSearch(packedLevel, start,
+					new TranspositionTable(stateWords,
+							settings.getMemoryLimit(), settings.isOffHeap()),
+					progress);
+		else if (settings.getStrategy()
+				== SolverSettings.EXTERNAL_BREADTH_FIRST)
+			try {
+				return new ExternalSearch(packedLevel, settings, progress)
+						.search(start);
+			} catch (IOException e) {
+				throw new IllegalStateException(
+						"The solver could not use its scratch files.", e);
 			}
+		else {
+			StateTable visitedLevels = new StateTable(stateWords,
+					settings.getMemoryLimit(), settings.isOffHeap());
+			if (settings.getStrategy() == SolverSettings.A_STAR)
+				return aStarSearch(packedLevel, start, visitedLevels,
+						progress);
+			else if (settings.getThreads() > 1) {
+				ForkJoinPool pool = new ForkJoinPool(settings.getThreads());
+				try {
+					return breadthFirstSearch(packedLevel, start,
+							visitedLevels, pool, progress);
+				} finally {
+					pool.shutdown();
+				}
+			} else
+				return breadthFirstSearch(packedLevel, start, visitedLevels,
+						null, progress);
 		}
-		if (currentLevel.canRotate()) {
-			Level next = new Level(currentLevel);
-			next.rotateLeft();
-			if (visitedLevels.add(next)) {
-				nextLevelQueue.add(next);
-				LinkedList<Integer> newMoves = new LinkedList<Integer>(moves);
-				newMoves.add(LevelSolution.ROTATE_LEFT);
-				nextMoveQueue.add(newMoves);
+	}
+
+	/**
+	 * Walks the player to a cell by the shortest route, adding the directions
+	 * walked to the moves.
+	 * 
+	 * @param packedLevel the layout of the level being solved.
+	 * @param state the state to move the player in.
+	 * @param target the cell to walk to, or -1 to walk to the nearest
+	 *            FinishTile Precondition: the player can walk to the target.
+	 * @param reached the walk to reuse for finding the route.
+	 * @param moves the list to add the directions walked to.
+	 * @return the state with the player moved.
+	 */
+	private static PackedLevel.State walkTo(PackedLevel packedLevel,
+			PackedLevel.State state, int target, Reachability reached,
+			LinkedList<Integer> moves)
+	{
+		// Walk outwards until the target is found.
+		int start = packedLevel.getPlayer(state);
+		int end = start;
+		reached.start(start);
+		while (reached.hasNext()) {
+			int cell = reached.next();
+			if (cell == target || target < 0 && packedLevel.isFinish(cell)) {
+				end = cell;
+				break;
 			}
-			next = new Level(currentLevel);
-			next.rotateRight();
-			if (visitedLevels.add(next)) {
-				nextLevelQueue.add(next);
-				LinkedList<Integer> newMoves = new LinkedList<Integer>(moves);
-				newMoves.add(LevelSolution.ROTATE_RIGHT);
-				nextMoveQueue.add(newMoves);
+			for (int direction = Tile.UP; direction <= Tile.LEFT; direction++) {
+				int next = packedLevel.getNeighbour(state, cell, direction);
+				if (next >= 0)
+					reached.add(next, direction);
 			}
 		}
+		if (end == start)
+			return state;
 
-		// Un-mark this point.
-		visited[point.y][point.x] = false;
-
-		// Return false since no FinishTile was found from here.
-		return false;
+		// Retrace the walk from the end back to the player.
+		moves.addAll(reached.getPath(end));
+		return packedLevel.moveTo(state, end);
 	}
 
 	/**
@@ -200,7 +776,8 @@ public class LevelSolution extends Level
 	private static LinkedList<Integer> getEquivalentMoveSequence(Level level,
 			LinkedList<Integer> oldMoves)
 	{
-
+		int width = level.getWidth();
+		Reachability reached = new Reachability(level.getHeight(), width);
 		LinkedList<Integer> equivalentMoves = new LinkedList<Integer>();
 		while (!oldMoves.isEmpty()) {
 
@@ -222,98 +799,40 @@ public class LevelSolution extends Level
 			}
 
 			// Find the player's starting position.
-			Point start = level.getPlayerPosition();
-			Point end = new Point(start);
+			Point position = level.getPlayerPosition();
+			int start = position.y * width + position.x;
+			int end = start;
 
 			// Find out where they end up.
-			while (!oldMoves.isEmpty() && oldMoves.peek() <= Tile.LEFT) {
-				switch (oldMoves.pop()) {
-				case Tile.UP:
-					end.y--;
-					break;
-				case Tile.RIGHT:
-					end.x++;
-					break;
-				case Tile.DOWN:
-					end.y++;
+			while (!oldMoves.isEmpty() && oldMoves.peek() <= Tile.LEFT)
+				end = reached.getAdjacent(end, oldMoves.pop());
+
+			// Walk outwards until the level is complete or the new position
+			// is found.
+			int cell = start;
+			reached.start(start);
+			while (reached.hasNext()) {
+				cell = reached.next();
+				level.movePlayerTo(cell / width, cell % width);
+				if (level.levelComplete() || cell == end)
 					break;
-				case Tile.LEFT:
-					end.x--;
-					break;
-				}
-			}
-
-			// Path to this new position.
-			LinkedList<Point> points = new LinkedList<Point>();
-			points.add(start);
-			LinkedList<LinkedList<Integer>> moves = new LinkedList<LinkedList<Integer>>();
-			moves.add(new LinkedList<Integer>());
-			boolean[][] visited = new boolean[level.getHeight()][level
-					.getWidth()];
-			Point startPos = null;
-			LinkedList<Integer> currentMoves = null;
-			do {
-				startPos = points.remove();
-				level.movePlayerTo(startPos.y, startPos.x);
-				visited[startPos.y][startPos.x] = true;
-				currentMoves = moves.remove();
 
 				// Check all four directions.
-				if (level.canMoveUp()) {
-					level.moveUp();
-					Point newPoint = level.getPlayerPosition();
-					if (!visited[newPoint.y][newPoint.x]) {
-						LinkedList<Integer> nextMoves = new LinkedList<Integer>(
-								currentMoves);
-						nextMoves.add(Tile.UP);
-						points.add(newPoint);
-						moves.add(nextMoves);
-					}
-					level.moveDown();
-				}
-				if (level.canMoveRight()) {
-					level.moveRight();
-					Point newPoint = level.getPlayerPosition();
-					if (!visited[newPoint.y][newPoint.x]) {
-						LinkedList<Integer> nextMoves = new LinkedList<Integer>(
-								currentMoves);
-						nextMoves.add(Tile.RIGHT);
-						points.add(newPoint);
-						moves.add(nextMoves);
-					}
-					level.moveLeft();
-				}
-				if (level.canMoveDown()) {
-					level.moveDown();
-					Point newPoint = level.getPlayerPosition();
-					if (!visited[newPoint.y][newPoint.x]) {
-						LinkedList<Integer> nextMoves = new LinkedList<Integer>(
-								currentMoves);
-						nextMoves.add(Tile.DOWN);
-						points.add(newPoint);
-						moves.add(nextMoves);
-					}
-					level.moveUp();
-				}
-				if (level.canMoveLeft()) {
-					level.moveLeft();
-					Point newPoint = level.getPlayerPosition();
-					if (!visited[newPoint.y][newPoint.x]) {
-						LinkedList<Integer> nextMoves = new LinkedList<Integer>(
-								currentMoves);
-						nextMoves.add(Tile.LEFT);
-						points.add(newPoint);
-						moves.add(nextMoves);
-					}
-					level.moveRight();
-				}
-			} while (!level.levelComplete()
-					&& !level.getPlayerPosition().equals(end));
-
-			// Empty out the moves found into the move list.
-			while (!currentMoves.isEmpty())
-				equivalentMoves.add(currentMoves.remove());
+				if (level.canMoveUp())
+					reached.add(reached.getAdjacent(cell, Tile.UP), Tile.UP);
+				if (level.canMoveRight())
+					reached.add(reached.getAdjacent(cell, Tile.RIGHT),
+							Tile.RIGHT);
+				if (level.canMoveDown())
+					reached.add(reached.getAdjacent(cell, Tile.DOWN),
+							Tile.DOWN);
+				if (level.canMoveLeft())
+					reached.add(reached.getAdjacent(cell, Tile.LEFT),
+							Tile.LEFT);
+			}
 
+			// Add the path to this new position to the move list.
+			equivalentMoves.addAll(reached.getPath(cell));
 		}
 
 		// Return the equivalent sequence.
@@ -332,6 +851,26 @@ public class LevelSolution extends Level
 		moves = new LinkedList<Integer>(solutionMoves);
 	}
 
+	/**
+	 * Gives the moves left in this solution.
+	 * 
+	 * @return a copy of the moves that have not been stepped through.
+	 */
+	LinkedList<Integer> getMoves()
+	{
+		return new LinkedList<Integer>(moves);
+	}
+
+	/**
+	 * Gives the number of moves left in this solution.
+	 * 
+	 * @return the number of moves that have not been stepped through.
+	 */
+	public int getNoOfMoves()
+	{
+		return moves.size();
+	}
+
 	/**
 	 * Steps the solution forward one move.
 	 */
@@ -121,6 +121,16 @@ public class LockedTile extends FixedTile
 		return super.hashCode() * hashCode;
 	}
 
+	/**
+	 * Checks whether this tile is currently unlocked.
+	 * 
+	 * @return true if the tile is unlocked, and false if it is locked.
+	 */
+	public boolean isUnlocked()
+	{
+		return unlocked;
+	}
+
 	/**
 	 * Reads the tile colour, connector colours, and locked/unlocked state of
 	 * this tile.
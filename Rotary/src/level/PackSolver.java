@@ -0,0 +1,308 @@
+package level;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Solves every level of a level pack at once, spread over a fixed number of
+ * threads. Each level can be given a time limit, after which its search is
+ * cancelled. The solutions are collected so the whole pack can be written to
+ * its solution file in one go.
+ * 
+ * @author Austin Tripp and Sherman Ying
+ * @version October 18, 2026
+ */
+public class PackSolver
+{
+	/**
+	 * The level has not been solved, either because the solver has not
+	 * reached it yet or because solving was cancelled.
+	 */
+	public static final int UNSOLVED = 0;
+
+	/**
+	 * A solution to the level was found.
+	 */
+	public static final int SOLVED = 1;
+
+	/**
+	 * The level was searched completely and cannot be solved.
+	 */
+	public static final int UNSOLVABLE = 2;
+
+	/**
+	 * The level's search was cancelled for going over the time limit.
+	 */
+	public static final int TIMED_OUT = 3;
+
+	/**
+	 * The level's search stopped with an error, such as reaching the memory
+	 * limit.
+	 */
+	public static final int FAILED = 4;
+
+	// The levels to solve and the settings to solve them with.
+	private final Level[] levelPack;
+	private final SolverSettings settings;
+
+	// The results and progress of each level.
+	private final LevelSolution[] solutions;
+	private final int[] statuses;
+	private final long[] times;
+	private final SolverProgress[] progress;
+
+	// Whether solving the pack was cancelled.
+	private volatile boolean cancelled;
+
+	/**
+	 * Constructs a PackSolver for the given levels.
+	 * 
+	 * @param levelPack the levels to solve.
+	 * @param settings the settings to solve each level with.
+	 */
+	public PackSolver(Level[] levelPack, SolverSettings settings)
+	{
+		this.levelPack = levelPack;
+		this.settings = settings;
+		solutions = new LevelSolution[levelPack.length];
+		statuses = new int[levelPack.length];
+		times = new long[levelPack.length];
+		progress = new SolverProgress[levelPack.length];
+		for (int level = 0; level < levelPack.length; level++)
+			progress[level] = new SolverProgress();
+		cancelled = false;
+	}
+
+	/**
+	 * Cancels solving the pack. Levels already solved keep their results.
+	 */
+	public void cancel()
+	{
+		cancelled = true;
+		for (SolverProgress levelProgress : progress)
+			levelProgress.cancel();
+	}
+
+	/**
+	 * Gives the progress of a level's search.
+	 * 
+	 * @param level the index of the level Precondition: level is a valid
+	 *            index in the pack.
+	 * @return the progress of the level's search.
+	 */
+	public SolverProgress getProgress(int level)
+	{
+		return progress[level];
+	}
+
+	/**
+	 * Gives the solution found for a level.
+	 * 
+	 * @param level the index of the level Precondition: level is a valid
+	 *            index in the pack.
+	 * @return the solution, or null if none was found.
+	 */
+	public LevelSolution getSolution(int level)
+	{
+		return solutions[level];
+	}
+
+	/**
+	 * Gives the solutions found for the whole pack.
+	 * 
+	 * @return the solution to each level, or null for levels without one.
+	 */
+	public LevelSolution[] getSolutions()
+	{
+		return solutions.clone();
+	}
+
+	/**
+	 * Gives the result of solving a level.
+	 * 
+	 * @param level the index of the level Precondition: level is a valid
+	 *            index in the pack.
+	 * @return UNSOLVED, SOLVED, UNSOLVABLE, TIMED_OUT or FAILED.
+	 */
+	public int getStatus(int level)
+	{
+		return statuses[level];
+	}
+
+	/**
+	 * Gives the time spent solving a level.
+	 * 
+	 * @param level the index of the level Precondition: level is a valid
+	 *            index in the pack.
+	 * @return the time in milliseconds, or 0 if the level was not searched.
+	 */
+	public long getTime(int level)
+	{
+		return times[level];
+	}
+
+	/**
+	 * Checks whether solving the pack was cancelled.
+	 * 
+	 * @return true if cancel() was called, otherwise false.
+	 */
+	public boolean isCancelled()
+	{
+		return cancelled;
+	}
+
+	/**
+	 * Solves every level in the pack, returning once all of them are done.
+	 * 
+	 * @param threads the number of levels to solve at once Precondition:
+	 *            threads >= 1.
+	 * @param timeout the most milliseconds to spend on each level, or 0 for
+	 *            no limit.
+	 * @throws InterruptedException if the calling thread is interrupted while
+	 *             waiting. Solving is cancelled first.
+	 */
+	public void solve(int threads, long timeout) throws InterruptedException
+	{
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		ScheduledExecutorService timer = Executors
+				.newSingleThreadScheduledExecutor();
+		try {
+			ArrayList<Future<?>> tasks = new ArrayList<Future<?>>();
+			for (int level = 0; level < levelPack.length; level++)
+				tasks.add(pool.submit(new LevelTask(level, timer, timeout)));
+			for (Future<?> task : tasks)
+				task.get();
+		} catch (InterruptedException e) {
+			cancel();
+			throw e;
+		} catch (ExecutionException e) {
+			// Each task catches its own errors, so this is never reached.
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			pool.shutdown();
+			timer.shutdownNow();
+		}
+	}
+
+	/**
+	 * Writes the solutions to a solution file. The file is written under a
+	 * temporary name first and then moved into place, so the file is never
+	 * left half written.
+	 * 
+	 * @param solutions the solutions of every level in the pack.
+	 * @param file the solution file to write.
+	 * @throws IOException if the file cannot be written.
+	 */
+	public static void writeSolutions(LevelSolution[] solutions, File file)
+			throws IOException
+	{
+		File directory = file.getAbsoluteFile().getParentFile();
+		File temporary = File.createTempFile(file.getName(), ".tmp",
+				directory);
+		try {
+			ObjectOutputStream out = new ObjectOutputStream(
+					new FileOutputStream(temporary));
+			try {
+				out.writeObject(solutions);
+			} finally {
+				out.close();
+			}
+			try {
+				Files.move(temporary.toPath(), file.toPath(),
+						StandardCopyOption.ATOMIC_MOVE,
+						StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temporary.toPath(), file.toPath(),
+						StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			temporary.delete();
+		}
+	}
+
+	/**
+	 * Solves a single level of the pack, recording its result.
+	 */
+	private class LevelTask implements Runnable
+	{
+		private final int level;
+		private final ScheduledExecutorService timer;
+		private final long timeout;
+
+		// Whether the time limit ran out.
+		private volatile boolean timedOut;
+
+		/**
+		 * Constructs the task of solving a level.
+		 * 
+		 * @param level the index of the level to solve.
+		 * @param timer the service used to cancel the search once it runs
+		 *            out of time.
+		 * @param timeout the time limit in milliseconds, or 0 for no limit.
+		 */
+		LevelTask(int level, ScheduledExecutorService timer, long timeout)
+		{
+			this.level = level;
+			this.timer = timer;
+			this.timeout = timeout;
+			timedOut = false;
+		}
+
+		/**
+		 * Solves the level, cancelling the search if it runs out of time.
+		 */
+		public void run()
+		{
+			if (cancelled)
+				return;
+			ScheduledFuture<?> alarm = null;
+			if (timeout > 0)
+				alarm = timer.schedule(new Runnable()
+				{
+					public void run()
+					{
+						timedOut = true;
+						progress[level].cancel();
+					}
+				}, timeout, TimeUnit.MILLISECONDS);
+
+			long startTime = System.nanoTime();
+			try {
+				LinkedList<Integer> moves = LevelSolution.findLevelSolution(
+						levelPack[level], settings, progress[level]);
+				if (moves == null)
+					statuses[level] = UNSOLVABLE;
+				else {
+					solutions[level] = new LevelSolution(levelPack[level],
+							moves);
+					statuses[level] = SOLVED;
+				}
+			} catch (CancellationException e) {
+				statuses[level] = timedOut ? TIMED_OUT : UNSOLVED;
+			} catch (RuntimeException e) {
+				statuses[level] = FAILED;
+			} catch (OutOfMemoryError e) {
+				statuses[level] = FAILED;
+			} finally {
+				if (alarm != null)
+					alarm.cancel(false);
+				times[level] = (System.nanoTime() - startTime) / 1000000;
+			}
+		}
+	}
+}
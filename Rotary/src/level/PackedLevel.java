@@ -0,0 +1,985 @@
+package level;
+
+import java.awt.Point;
+import java.util.Arrays;
+
+/**
+ * A compact encoding of a Level used by the solver. Everything that can never
+ * change during play (the type of each tile, the connectors of tiles that
+ * cannot rotate, etc.) is stored once in this object, while each State only
+ * stores the player's position and the fields of each tile that can change,
+ * packed into as few bits as possible.
+ * 
+ * @author Austin Tripp and Sherman Ying
+ * @version October 18, 2026
+ */
+class PackedLevel
+{
+	// Codes for the kinds of tiles.
+	static final byte EMPTY = 0;
+	static final byte TILE = 1;
+	static final byte STATIC = 2;
+	static final byte FINISH = 3;
+	static final byte LOCKED = 4;
+	static final byte KEY = 5;
+	static final byte PAINT = 6;
+	static final byte TRANSPORT = 7;
+	static final byte LAUNCHER = 8;
+
+	// Size of each field in bits.
+	private static final int CONNECTOR_BITS = 12;
+	private static final int COLOUR_BITS = 3;
+	private static final int LOCK_BITS = 1;
+	private static final int DIRECTION_BITS = 2;
+
+	// Level dimensions.
+	private final int height;
+	private final int width;
+
+	// Tile data that never changes.
+	private final byte[] kind;
+	private final int[] tileRow;
+	private final int[] tileCol;
+	private final int[] baseConnectors;
+	private final int[] baseColour;
+	private final int[] baseTarget;
+	private final int[] baseLock;
+	private final int[] baseDirection;
+
+	// Bit offsets of the fields that can change, or -1 if they cannot.
+	private final int[] connectorOffset;
+	private final int[] colourOffset;
+	private final int[] targetOffset;
+	private final int[] lockOffset;
+	private final int[] directionOffset;
+	private final int playerBits;
+
+	// Cells of the tiles that act on other tiles, and of the tiles that can
+	// turn.
+	private final int[] lockedCells;
+	private final int[] transportCells;
+	private final int[] rotatableCells;
+
+	// The edges that never change, with every edge of a tile that can turn
+	// closed.
+	private final RegionBoard baseRegion;
+
+	// Whether rotating on each cell could ever matter.
+	private final boolean[] usefulRotations;
+
+	// Number of bits used so far while laying out the fields.
+	private int noOfBits;
+
+	/**
+	 * An immutable snapshot of the parts of a level that can change, along
+	 * with its Zobrist fingerprint.
+	 */
+	static final class State
+	{
+		final long[] words;
+		final long fingerprint;
+
+		/**
+		 * Constructs a new State from the given words.
+		 * 
+		 * @param words the packed fields of this state.
+		 * @param fingerprint the Zobrist fingerprint of the fields.
+		 */
+		State(long[] words, long fingerprint)
+		{
+			this.words = words;
+			this.fingerprint = fingerprint;
+		}
+
+		/**
+		 * Checks to see whether a given object is equal to this one.
+		 * 
+		 * @param obj the object to compare it to.
+		 * @return true if obj is a State with the same packed fields,
+		 *         otherwise false.
+		 */
+		public boolean equals(Object obj)
+		{
+			if (!(obj instanceof State))
+				return false;
+			State other = (State) obj;
+			return fingerprint == other.fingerprint
+					&& Arrays.equals(words, other.words);
+		}
+
+		/**
+		 * Finds a hashCode value for this state.
+		 * 
+		 * @return an integer hashCode value for this state.
+		 */
+		public int hashCode()
+		{
+			return (int) (fingerprint ^ fingerprint >>> 32);
+		}
+	}
+
+	/**
+	 * Constructs the layout used to encode states of the given level.
+	 * 
+	 * @param level the level to encode.
+	 * @param analysis the analysis of the level, used to leave out rotations
+	 *            that can never matter, or null to keep every rotation.
+	 */
+	PackedLevel(Level level, LevelAnalysis analysis)
+	{
+		height = level.getHeight();
+		width = level.getWidth();
+		int size = height * width;
+		kind = new byte[size];
+		tileRow = new int[size];
+		tileCol = new int[size];
+		baseConnectors = new int[size];
+		baseColour = new int[size];
+		baseTarget = new int[size];
+		baseLock = new int[size];
+		baseDirection = new int[size];
+		connectorOffset = new int[size];
+		colourOffset = new int[size];
+		targetOffset = new int[size];
+		lockOffset = new int[size];
+		directionOffset = new int[size];
+		usefulRotations = new boolean[size];
+
+		// Classify each tile and find out whether colours can ever change.
+		boolean hasPaint = false;
+		int noOfLocked = 0;
+		int noOfTransport = 0;
+		int noOfRotatable = 0;
+		for (int cell = 0; cell < size; cell++) {
+			Tile tile = level.tileAt(cell / width, cell % width);
+			kind[cell] = kindOf(tile);
+			baseConnectors[cell] = packConnectors(tile.getConnections());
+			baseColour[cell] = tile.getColour();
+			if (tile instanceof ActionTile) {
+				ActionTile action = (ActionTile) tile;
+				baseTarget[cell] = action.getTargetColour();
+				tileRow[cell] = action.row;
+				tileCol[cell] = action.col;
+			}
+			if (tile instanceof LockedTile)
+				baseLock[cell] = ((LockedTile) tile).isUnlocked() ? 1 : 0;
+			if (tile instanceof LauncherTile)
+				baseDirection[cell] = ((LauncherTile) tile).getDirection();
+			usefulRotations[cell] = analysis == null
+					|| analysis.isRotationUseful(cell);
+			if (kind[cell] == PAINT)
+				hasPaint = true;
+			else if (kind[cell] == LOCKED)
+				noOfLocked++;
+			else if (kind[cell] == TRANSPORT)
+				noOfTransport++;
+			if (isRotatable(kind[cell]))
+				noOfRotatable++;
+		}
+		lockedCells = new int[noOfLocked];
+		transportCells = new int[noOfTransport];
+		rotatableCells = new int[noOfRotatable];
+
+		// Lay out the fields, starting with the player's position.
+		playerBits = Math.max(1, 32 - Integer.numberOfLeadingZeros(size - 1));
+		noOfBits = playerBits;
+		noOfLocked = 0;
+		noOfTransport = 0;
+		noOfRotatable = 0;
+		for (int cell = 0; cell < size; cell++) {
+			byte k = kind[cell];
+			connectorOffset[cell] = isRotatable(k) ? allocate(CONNECTOR_BITS)
+					: -1;
+			colourOffset[cell] = hasPaint && k != EMPTY ? allocate(COLOUR_BITS)
+					: -1;
+			targetOffset[cell] = k == PAINT ? allocate(COLOUR_BITS) : -1;
+			lockOffset[cell] = k == LOCKED ? allocate(LOCK_BITS) : -1;
+			directionOffset[cell] = k == LAUNCHER ? allocate(DIRECTION_BITS)
+					: -1;
+			if (k == LOCKED)
+				lockedCells[noOfLocked++] = cell;
+			else if (k == TRANSPORT)
+				transportCells[noOfTransport++] = cell;
+			if (isRotatable(k))
+				rotatableCells[noOfRotatable++] = cell;
+		}
+
+		// Lay out the edges that can never change.
+		int[] fixedConnectors = new int[size];
+		boolean[] canEnter = new boolean[size];
+		baseRegion = new RegionBoard(height, width);
+		for (int cell = 0; cell < size; cell++) {
+			if (!isRotatable(kind[cell]))
+				fixedConnectors[cell] = baseConnectors[cell];
+			canEnter[cell] = kind[cell] != EMPTY;
+		}
+		baseRegion.setLevel(fixedConnectors, canEnter);
+		for (int cell = 0; cell < size; cell++)
+			if (kind[cell] == FINISH)
+				baseRegion.setTarget(cell);
+	}
+
+	/**
+	 * Finds the kind code of the given tile.
+	 * 
+	 * @param tile the tile to classify.
+	 * @return the kind code of the tile.
+	 */
+	static byte kindOf(Tile tile)
+	{
+		if (tile instanceof EmptyTile)
+			return EMPTY;
+		if (tile instanceof FinishTile)
+			return FINISH;
+		if (tile instanceof StaticTile)
+			return STATIC;
+		if (tile instanceof LockedTile)
+			return LOCKED;
+		if (tile instanceof KeyTile)
+			return KEY;
+		if (tile instanceof PaintTile)
+			return PAINT;
+		if (tile instanceof TransportTile)
+			return TRANSPORT;
+		if (tile instanceof LauncherTile)
+			return LAUNCHER;
+		return TILE;
+	}
+
+	/**
+	 * Checks whether the connectors of a kind of tile can ever change.
+	 * 
+	 * @param k the kind code of the tile.
+	 * @return true if the tile can ever be rotated, otherwise false.
+	 */
+	static boolean isRotatable(byte k)
+	{
+		return k != EMPTY && k != STATIC && k != FINISH;
+	}
+
+	/**
+	 * Packs four connector colours into a single word, 3 bits per direction.
+	 * 
+	 * @param connectors the colours of the connectors (URDL).
+	 * @return the packed connectors.
+	 */
+	static int packConnectors(int[] connectors)
+	{
+		return connectors[Tile.UP] | connectors[Tile.RIGHT] << 3
+				| connectors[Tile.DOWN] << 6 | connectors[Tile.LEFT] << 9;
+	}
+
+	/**
+	 * Rotates packed connectors 90 degrees to the left.
+	 * 
+	 * @param connectors the packed connectors.
+	 * @return the rotated connectors.
+	 */
+	private static int rotateConnectorsLeft(int connectors)
+	{
+		return connectors >>> 3 | (connectors & 7) << 9;
+	}
+
+	/**
+	 * Rotates packed connectors 90 degrees to the right.
+	 * 
+	 * @param connectors the packed connectors.
+	 * @return the rotated connectors.
+	 */
+	private static int rotateConnectorsRight(int connectors)
+	{
+		return (connectors << 3 & 0xFFF) | connectors >>> 9;
+	}
+
+	/**
+	 * Activates the tile at the given cell.
+	 * 
+	 * @param state the state to start from.
+	 * @param cell the cell the player is standing on Precondition:
+	 *            canActivate(state, cell) is true.
+	 * @return the state after the player activates the tile on the cell.
+	 */
+	State activate(State state, int cell)
+	{
+		long[] words = state.words.clone();
+		long fingerprint = state.fingerprint ^ movePlayer(words, cell);
+		int target = get(words, targetOffset, baseTarget, cell, COLOUR_BITS);
+		switch (kind[cell]) {
+		case KEY:
+			for (int locked : lockedCells)
+				if (getColour(words, locked) == target) {
+					fingerprint ^= cellKey(words, locked);
+					set(words, lockOffset[locked], LOCK_BITS,
+							get(words, lockOffset, baseLock, locked,
+									LOCK_BITS) ^ 1);
+					fingerprint ^= cellKey(words, locked);
+				}
+			break;
+		case PAINT:
+			int colour = getColour(words, cell);
+			fingerprint ^= cellKey(words, cell);
+			for (int other = 0; other < kind.length; other++)
+				if (kind[other] != EMPTY && other != cell
+						&& getColour(words, other) == target) {
+					fingerprint ^= cellKey(words, other);
+					set(words, colourOffset[other], COLOUR_BITS, colour);
+					fingerprint ^= cellKey(words, other);
+				}
+			set(words, colourOffset[cell], COLOUR_BITS, target);
+			set(words, targetOffset[cell], COLOUR_BITS, colour);
+			fingerprint ^= cellKey(words, cell);
+			break;
+		case TRANSPORT:
+			int[] targets = new int[transportCells.length];
+			int noOfTargets = 0;
+			int currentIndex = -1;
+			for (int other : transportCells) {
+				boolean self = other / width == tileRow[cell]
+						&& other % width == tileCol[cell];
+				if (getColour(words, other) == target && !self)
+					targets[noOfTargets++] = other;
+				else if (self)
+					currentIndex = noOfTargets;
+			}
+			fingerprint ^= movePlayer(words, targets[currentIndex
+					% noOfTargets]);
+			break;
+		case LAUNCHER:
+			fingerprint ^= movePlayer(words, getLaunchTarget(words, cell));
+			break;
+		}
+		return new State(words, fingerprint);
+	}
+
+	/**
+	 * Reserves space for a field, never splitting a field across two words.
+	 * 
+	 * @param bits the size of the field.
+	 * @return the offset of the new field.
+	 */
+	private int allocate(int bits)
+	{
+		if ((noOfBits & 63) + bits > 64)
+			noOfBits = (noOfBits + 63) & ~63;
+		int offset = noOfBits;
+		noOfBits += bits;
+		return offset;
+	}
+
+	/**
+	 * Checks whether the tile at the given cell can be activated.
+	 * 
+	 * @param state the state to check.
+	 * @param cell the cell the player is standing on.
+	 * @return true if the tile can be activated, otherwise false.
+	 */
+	boolean canActivate(State state, int cell)
+	{
+		long[] words = state.words;
+		int target = get(words, targetOffset, baseTarget, cell, COLOUR_BITS);
+		switch (kind[cell]) {
+		case KEY:
+			for (int locked : lockedCells)
+				if (getColour(words, locked) == target)
+					return true;
+			return false;
+		case PAINT:
+			for (int other = 0; other < kind.length; other++)
+				if (getColour(words, other) == target)
+					return true;
+			return false;
+		case TRANSPORT:
+			for (int other : transportCells)
+				if (getColour(words, other) == target
+						&& !(other / width == tileRow[cell] && other % width
+								== tileCol[cell]))
+					return true;
+			return false;
+		case LAUNCHER:
+			return getLaunchTarget(words, cell) >= 0;
+		}
+		return false;
+	}
+
+	/**
+	 * Checks whether the tile at the given cell can be rotated. Rotations that
+	 * can never change anything that matters are left out.
+	 * 
+	 * @param state the state to check.
+	 * @param cell the cell the player is standing on.
+	 * @return true if the tile can be rotated, otherwise false.
+	 */
+	boolean canRotate(State state, int cell)
+	{
+		byte k = kind[cell];
+		if (!usefulRotations[cell])
+			return false;
+		if (k == LOCKED)
+			return get(state.words, lockOffset, baseLock, cell, LOCK_BITS) == 1;
+		return isRotatable(k);
+	}
+
+	/**
+	 * Finds the fingerprint key of a cell in its current state.
+	 * 
+	 * @param words the packed state.
+	 * @param cell the cell to find the key of.
+	 * @return the key of the cell.
+	 */
+	private long cellKey(long[] words, int cell)
+	{
+		long value = getConnectors(words, cell);
+		value = value << COLOUR_BITS | getColour(words, cell);
+		value = value << COLOUR_BITS
+				| get(words, targetOffset, baseTarget, cell, COLOUR_BITS);
+		value = value << LOCK_BITS
+				| get(words, lockOffset, baseLock, cell, LOCK_BITS);
+		value = value << DIRECTION_BITS
+				| get(words, directionOffset, baseDirection, cell,
+						DIRECTION_BITS);
+		return Zobrist.cellKey(cell, value);
+	}
+
+	/**
+	 * Encodes the current state of the level used to build this layout.
+	 * 
+	 * @param level the level to encode Precondition: level has the same
+	 *            layout as the one used to construct this object.
+	 * @return the packed state of the level.
+	 */
+	State encode(Level level)
+	{
+		long[] words = new long[getStateWords()];
+		Point player = level.getPlayerPosition();
+		long fingerprint = movePlayer(words, player.y * width + player.x)
+				^ Zobrist.playerKey(0);
+		for (int cell = 0; cell < kind.length; cell++) {
+			Tile tile = level.tileAt(cell / width, cell % width);
+			set(words, connectorOffset[cell], CONNECTOR_BITS,
+					packConnectors(tile.getConnections()));
+			set(words, colourOffset[cell], COLOUR_BITS, tile.getColour());
+			if (tile instanceof ActionTile)
+				set(words, targetOffset[cell], COLOUR_BITS,
+						((ActionTile) tile).getTargetColour());
+			if (tile instanceof LockedTile)
+				set(words, lockOffset[cell], LOCK_BITS,
+						((LockedTile) tile).isUnlocked() ? 1 : 0);
+			if (tile instanceof LauncherTile)
+				set(words, directionOffset[cell], DIRECTION_BITS,
+						((LauncherTile) tile).getDirection());
+			fingerprint ^= cellKey(words, cell);
+		}
+		return new State(words, fingerprint);
+	}
+
+	/**
+	 * Finds a lower bound on the number of rotations and activations needed
+	 * before the player can walk onto a FinishTile. Every action turns each
+	 * tile at most a quarter turn, so a path that needs some tile to make k
+	 * quarter turns needs at least k actions. This is the largest turn on the
+	 * path rather than the sum, since one rotation turns nine tiles at once.
+	 * The bound is consistent: it never decreases by more than one per action,
+	 * so the total of actions taken and the bound never decreases along a
+	 * path.
+	 * 
+	 * @param state the state to check.
+	 * @return the lower bound, or -1 if a FinishTile can never be reached.
+	 */
+	int estimateActions(State state)
+	{
+		long[] words = state.words;
+
+		// Find the fewest turns needed to reach each cell, a bucket at a time.
+		int size = kind.length;
+		int[] turns = new int[size];
+		Arrays.fill(turns, 3);
+		int[][] buckets = new int[3][size];
+		int[] bucketSizes = new int[3];
+		int start = getPlayer(words);
+		turns[start] = 0;
+		buckets[0][bucketSizes[0]++] = start;
+		boolean transported = false;
+		for (int bucket = 0; bucket < 3; bucket++)
+			for (int index = 0; index < bucketSizes[bucket]; index++) {
+				int cell = buckets[bucket][index];
+				if (turns[cell] < bucket)
+					continue;
+				if (kind[cell] == FINISH)
+					return bucket;
+
+				// Walk to the neighbouring tiles.
+				for (int direction = Tile.UP; direction <= Tile.LEFT;
+						direction++) {
+					int next = getAdjacent(cell, direction, 1);
+					if (next >= 0 && kind[next] != EMPTY) {
+						int needed = Math.max(bucket, getConnectionTurns(
+								words, cell, direction, next));
+						if (needed < turns[next]) {
+							turns[next] = needed;
+							buckets[needed][bucketSizes[needed]++] = next;
+						}
+					}
+				}
+
+				// Launch in any direction, or transport to any other
+				// transporter, taking at least one action.
+				int needed = Math.max(bucket, 1);
+				if (kind[cell] == LAUNCHER) {
+					int launcher = tileRow[cell] * width + tileCol[cell];
+					for (int direction = Tile.UP; direction <= Tile.LEFT;
+							direction++) {
+						int next = getAdjacent(launcher, direction, 2);
+						if (next >= 0 && kind[next] != EMPTY
+								&& needed < turns[next]) {
+							turns[next] = needed;
+							buckets[needed][bucketSizes[needed]++] = next;
+						}
+					}
+				}
+				if (kind[cell] == TRANSPORT && !transported) {
+					transported = true;
+					for (int next : transportCells)
+						if (needed < turns[next]) {
+							turns[next] = needed;
+							buckets[needed][bucketSizes[needed]++] = next;
+						}
+				}
+			}
+		return -1;
+	}
+
+	/**
+	 * Reads a field of the given cell, falling back to its fixed value if the
+	 * field cannot change.
+	 * 
+	 * @param words the packed state.
+	 * @param offsets the offsets of this field for every cell.
+	 * @param base the fixed values of this field for every cell.
+	 * @param cell the cell to read.
+	 * @param bits the size of the field.
+	 * @return the value of the field.
+	 */
+	private static int get(long[] words, int[] offsets, int[] base, int cell,
+			int bits)
+	{
+		int offset = offsets[cell];
+		if (offset < 0)
+			return base[cell];
+		return (int) (words[offset >>> 6] >>> (offset & 63)) & (1 << bits) - 1;
+	}
+
+	/**
+	 * Finds the cell a given distance away in a direction.
+	 * 
+	 * @param cell the cell to start from.
+	 * @param direction the direction to look in.
+	 * @param distance the number of cells to move.
+	 * @return the cell found, or -1 if it is outside of the level.
+	 */
+	private int getAdjacent(int cell, int direction, int distance)
+	{
+		int row = cell / width;
+		int col = cell % width;
+		switch (direction) {
+		case Tile.UP:
+			row -= distance;
+			break;
+		case Tile.RIGHT:
+			col += distance;
+			break;
+		case Tile.DOWN:
+			row += distance;
+			break;
+		default:
+			col -= distance;
+			break;
+		}
+		if (row < 0 || row >= height || col < 0 || col >= width)
+			return -1;
+		return row * width + col;
+	}
+
+	/**
+	 * Finds the colour of the tile at the given cell.
+	 * 
+	 * @param words the packed state.
+	 * @param cell the cell to read.
+	 * @return the colour of the tile.
+	 */
+	private int getColour(long[] words, int cell)
+	{
+		return get(words, colourOffset, baseColour, cell, COLOUR_BITS);
+	}
+
+	/**
+	 * Finds the fewest quarter turns that two neighbouring tiles must each make
+	 * before they connect.
+	 * 
+	 * @param words the packed state.
+	 * @param cell the cell to walk from.
+	 * @param direction the direction of the neighbour.
+	 * @param next the cell of the neighbour.
+	 * @return the number of quarter turns, or 3 if they can never connect.
+	 */
+	private int getConnectionTurns(long[] words, int cell, int direction,
+			int next)
+	{
+		int connectors = getConnectors(words, cell);
+		int otherConnectors = getConnectors(words, next);
+		int opposite = direction + 2 & 3;
+		int fewest = 3;
+		for (int side = Tile.UP; side <= Tile.LEFT; side++) {
+			int colour = connectors >>> 3 * side & 7;
+			int turns = turnsToFace(cell, side, direction);
+			if (colour != 0 && turns < fewest)
+				for (int other = Tile.UP; other <= Tile.LEFT; other++)
+					if ((otherConnectors >>> 3 * other & 7) == colour)
+						fewest = Math.min(fewest, Math.max(turns,
+								turnsToFace(next, other, opposite)));
+		}
+		return fewest;
+	}
+
+	/**
+	 * Finds the connectors of the tile at the given cell.
+	 * 
+	 * @param words the packed state.
+	 * @param cell the cell to read.
+	 * @return the packed connectors of the tile.
+	 */
+	private int getConnectors(long[] words, int cell)
+	{
+		return get(words, connectorOffset, baseConnectors, cell,
+				CONNECTOR_BITS);
+	}
+
+	/**
+	 * Finds the region of cells the player can walk to in a state, without
+	 * launching or transporting. Only the edges of tiles that can turn are
+	 * worked out again, since every other edge never changes.
+	 * 
+	 * @param state the state to check.
+	 * @param board the board to fill Precondition: it is the size of this
+	 *            level.
+	 */
+	void fillRegion(State state, RegionBoard board)
+	{
+		board.copy(baseRegion);
+		for (int cell : rotatableCells) {
+			int connectors = getConnectors(state.words, cell);
+			for (int direction = Tile.UP; direction <= Tile.LEFT; direction++) {
+				int next = getAdjacent(cell, direction, 1);
+				if (next >= 0) {
+					int colour = connectors >>> 3 * direction & 7;
+					board.setEdge(cell, direction, colour != 0
+							&& colour == (getConnectors(state.words, next)
+									>>> 3 * (direction + 2 & 3) & 7));
+				}
+			}
+		}
+		board.fill(getPlayer(state.words));
+	}
+
+	/**
+	 * Gives the Zobrist fingerprint of a state.
+	 * 
+	 * @param state the state to check.
+	 * @return the 64-bit fingerprint of the state.
+	 */
+	long getFingerprint(State state)
+	{
+		return state.fingerprint;
+	}
+
+	/**
+	 * Gives the height of the encoded level.
+	 * 
+	 * @return the number of rows in the level.
+	 */
+	int getHeight()
+	{
+		return height;
+	}
+
+	/**
+	 * Finds the cell a launcher at the given cell would launch the player to.
+	 * 
+	 * @param words the packed state.
+	 * @param cell the cell of the launcher.
+	 * @return the cell the player lands on, or -1 if it cannot launch.
+	 */
+	private int getLaunchTarget(long[] words, int cell)
+	{
+		int row = tileRow[cell];
+		int col = tileCol[cell];
+		switch (get(words, directionOffset, baseDirection, cell,
+				DIRECTION_BITS)) {
+		case Tile.UP:
+			row -= 2;
+			break;
+		case Tile.RIGHT:
+			col += 2;
+			break;
+		case Tile.DOWN:
+			row += 2;
+			break;
+		case Tile.LEFT:
+			col -= 2;
+			break;
+		}
+		if (row < 0 || row >= height || col < 0 || col >= width
+				|| kind[row * width + col] == EMPTY)
+			return -1;
+		return row * width + col;
+	}
+
+	/**
+	 * Finds the cell the player would move to by walking in a direction.
+	 * 
+	 * @param state the state to check.
+	 * @param cell the cell the player is standing on.
+	 * @param direction the direction to walk in.
+	 * @return the cell the player can walk to, or -1 if the player cannot
+	 *         move in that direction.
+	 */
+	int getNeighbour(State state, int cell, int direction)
+	{
+		int row = cell / width;
+		int col = cell % width;
+		int next;
+		switch (direction) {
+		case Tile.UP:
+			if (row == 0)
+				return -1;
+			next = cell - width;
+			break;
+		case Tile.RIGHT:
+			if (col == width - 1)
+				return -1;
+			next = cell + 1;
+			break;
+		case Tile.DOWN:
+			if (row == height - 1)
+				return -1;
+			next = cell + width;
+			break;
+		default:
+			if (col == 0)
+				return -1;
+			next = cell - 1;
+			break;
+		}
+		if (kind[next] == EMPTY)
+			return -1;
+		int colour = getConnectors(state.words, cell) >>> 3 * direction & 7;
+		int other = getConnectors(state.words, next) >>> 3 * (direction + 2 & 3)
+				& 7;
+		return colour != 0 && colour == other ? next : -1;
+	}
+
+	/**
+	 * Finds the position of the player in the given state.
+	 * 
+	 * @param state the state to check.
+	 * @return the cell the player is standing on.
+	 */
+	int getPlayer(State state)
+	{
+		return getPlayer(state.words);
+	}
+
+	/**
+	 * Finds the position of the player in a packed state.
+	 * 
+	 * @param words the packed state.
+	 * @return the cell the player is standing on.
+	 */
+	private int getPlayer(long[] words)
+	{
+		return (int) words[0] & (1 << playerBits) - 1;
+	}
+
+	/**
+	 * Gives the number of cells in the encoded level.
+	 * 
+	 * @return the number of cells.
+	 */
+	int getSize()
+	{
+		return kind.length;
+	}
+
+	/**
+	 * Gives the number of words used by each packed state.
+	 * 
+	 * @return the length of a state's words.
+	 */
+	int getStateWords()
+	{
+		return (noOfBits + 63) / 64;
+	}
+
+	/**
+	 * Gives the width of the encoded level.
+	 * 
+	 * @return the number of columns in the level.
+	 */
+	int getWidth()
+	{
+		return width;
+	}
+
+	/**
+	 * Checks whether the given cell holds a FinishTile.
+	 * 
+	 * @param cell the cell to check.
+	 * @return true if the cell is a FinishTile, otherwise false.
+	 */
+	boolean isFinish(int cell)
+	{
+		return kind[cell] == FINISH;
+	}
+
+	/**
+	 * Moves the player in the packed state.
+	 * 
+	 * @param words the packed state to change.
+	 * @param cell the new cell of the player.
+	 * @return the change to XOR into the fingerprint of the state.
+	 */
+	private long movePlayer(long[] words, int cell)
+	{
+		long change = Zobrist.playerKey(getPlayer(words));
+		set(words, 0, playerBits, cell);
+		return change ^ Zobrist.playerKey(cell);
+	}
+
+	/**
+	 * Moves the player to another cell without changing any tiles.
+	 * 
+	 * @param state the state to start from.
+	 * @param cell the cell to move the player to.
+	 * @return the state with the player on the given cell.
+	 */
+	State moveTo(State state, int cell)
+	{
+		long[] words = state.words.clone();
+		return new State(words, state.fingerprint ^ movePlayer(words, cell));
+	}
+
+	/**
+	 * Rotates the tile at the given cell left, and the tiles around it right.
+	 * 
+	 * @param state the state to start from.
+	 * @param cell the cell the player is standing on Precondition:
+	 *            canRotate(state, cell) is true.
+	 * @return the state after the rotation.
+	 */
+	State rotateLeft(State state, int cell)
+	{
+		return rotate(state, cell, true);
+	}
+
+	/**
+	 * Rotates the tile at the given cell right, and the tiles around it left.
+	 * 
+	 * @param state the state to start from.
+	 * @param cell the cell the player is standing on Precondition:
+	 *            canRotate(state, cell) is true.
+	 * @return the state after the rotation.
+	 */
+	State rotateRight(State state, int cell)
+	{
+		return rotate(state, cell, false);
+	}
+
+	/**
+	 * Rotates the 3x3 block of tiles around the given cell.
+	 * 
+	 * @param state the state to start from.
+	 * @param cell the centre of the rotation.
+	 * @param left true if the centre tile rotates left, otherwise false.
+	 * @return the state after the rotation.
+	 */
+	private State rotate(State state, int cell, boolean left)
+	{
+		long[] words = state.words.clone();
+		long fingerprint = state.fingerprint ^ movePlayer(words, cell);
+		int row = cell / width;
+		int col = cell % width;
+		for (int r = row - 1; r <= row + 1; r++)
+			for (int c = col - 1; c <= col + 1; c++)
+				if (r >= 0 && r < height && c >= 0 && c < width) {
+					int other = r * width + c;
+					fingerprint ^= cellKey(words, other);
+					rotateTile(words, other, (r == row && c == col) == left);
+					fingerprint ^= cellKey(words, other);
+				}
+		return new State(words, fingerprint);
+	}
+
+	/**
+	 * Rotates a single tile, following the rules of its kind.
+	 * 
+	 * @param words the packed state to change.
+	 * @param cell the cell of the tile.
+	 * @param left true to rotate left, false to rotate right.
+	 */
+	private void rotateTile(long[] words, int cell, boolean left)
+	{
+		byte k = kind[cell];
+		if (!isRotatable(k)
+				|| (k == LOCKED && get(words, lockOffset, baseLock, cell,
+						LOCK_BITS) == 0))
+			return;
+		int connectors = getConnectors(words, cell);
+		set(words, connectorOffset[cell], CONNECTOR_BITS,
+				left ? rotateConnectorsLeft(connectors)
+						: rotateConnectorsRight(connectors));
+		if (k == LAUNCHER) {
+			int direction = get(words, directionOffset, baseDirection, cell,
+					DIRECTION_BITS);
+			set(words, directionOffset[cell], DIRECTION_BITS,
+					(direction + (left ? 3 : 1)) % 4);
+		}
+	}
+
+	/**
+	 * Writes a field into the packed state. Does nothing if the field cannot
+	 * change.
+	 * 
+	 * @param words the packed state to change.
+	 * @param offset the offset of the field, or -1 if it cannot change.
+	 * @param bits the size of the field.
+	 * @param value the new value of the field.
+	 */
+	private static void set(long[] words, int offset, int bits, int value)
+	{
+		if (offset < 0)
+			return;
+		long mask = ((1L << bits) - 1) << (offset & 63);
+		int index = offset >>> 6;
+		words[index] = words[index] & ~mask
+				| ((long) value << (offset & 63) & mask);
+	}
+
+	/**
+	 * Finds the fewest quarter turns that bring one side of a tile to face a
+	 * given direction.
+	 * 
+	 * @param cell the cell of the tile.
+	 * @param side the side of the tile as it is now.
+	 * @param direction the direction the side must face.
+	 * @return the number of quarter turns, or 3 if the tile cannot turn.
+	 */
+	private int turnsToFace(int cell, int side, int direction)
+	{
+		int turns = side - direction & 3;
+		if (turns == 0)
+			return 0;
+		if (!isRotatable(kind[cell]))
+			return 3;
+		return turns == 3 ? 1 : turns;
+	}
+
+}
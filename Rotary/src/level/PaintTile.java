@@ -45,18 +45,7 @@ public class PaintTile extends ActionTile
 	 */
 	public void activate(Level level)
 	{
-		int width = level.getWidth();
-		int height = level.getHeight();
-		for (int r = 0; r < height; r++)
-			for (int c = 0; c < width; c++) {
-				Tile tile = level.tileAt(r, c);
-				if (tile.isSameColour(targetColour))
-					tile.recolour(getColour());
-			}
-		int newColour = targetColour;
-		int newTarget = getColour();
-		recolour(newColour);
-		retarget(newTarget);
+		level.activateTileAt(row, col);
 	}
 
 	/**
@@ -69,14 +58,7 @@ public class PaintTile extends ActionTile
 	 */
 	public boolean canActivate(Level level)
 	{
-		int width = level.getWidth();
-		int height = level.getHeight();
-		for (int r = 0; r < height; r++)
-			for (int c = 0; c < width; c++)
-				if (level.tileAt(r, c).isSameColour(targetColour))
-					return true;
-
-		return false;
+		return level.canActivateTileAt(row, col);
 	}
 
 	/**
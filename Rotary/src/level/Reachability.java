@@ -0,0 +1,167 @@
+package level;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+
+/**
+ * Walks outwards from a cell one step at a time, without recursion. The cells
+ * reached are kept in a queue of ints, in the order they were reached, along
+ * with the direction each was entered in. Cells are marked as reached by
+ * stamping them with the number of the current walk, so starting a new walk
+ * never needs to clear anything and the same object can be reused for every
+ * state of a search. Only one thread may use each object.
+ * 
+ * @author Austin Tripp and Sherman Ying
+ * @version October 18, 2026
+ */
+class Reachability
+{
+	// Level dimensions.
+	private final int width;
+
+	// The walk each cell was last reached in, and the current walk.
+	private final int[] marks;
+	private int walk;
+
+	// The cells reached, in order, and the part not yet walked from.
+	private final int[] queue;
+	private int head;
+	private int tail;
+
+	// The direction each cell was entered in.
+	private final int[] directions;
+
+	/**
+	 * Constructs a Reachability for levels of the given size.
+	 * 
+	 * @param height the number of rows in the level.
+	 * @param width the number of columns in the level.
+	 */
+	Reachability(int height, int width)
+	{
+		this.width = width;
+		marks = new int[height * width];
+		queue = new int[height * width];
+		directions = new int[height * width];
+		walk = 0;
+	}
+
+	/**
+	 * Reaches a cell by walking in a direction from a cell already reached.
+	 * Does nothing if the cell was already reached in this walk.
+	 * 
+	 * @param cell the cell reached.
+	 * @param direction the direction walked in to enter the cell.
+	 * @return true if the cell had not been reached before, otherwise false.
+	 */
+	boolean add(int cell, int direction)
+	{
+		if (marks[cell] == walk)
+			return false;
+		marks[cell] = walk;
+		directions[cell] = direction;
+		queue[tail++] = cell;
+		return true;
+	}
+
+	/**
+	 * Finds the cell next to another one.
+	 * 
+	 * @param cell the cell to start from.
+	 * @param direction the direction to look in.
+	 * @return the neighbouring cell Precondition: it is inside of the level.
+	 */
+	int getAdjacent(int cell, int direction)
+	{
+		switch (direction) {
+		case Tile.UP:
+			return cell - width;
+		case Tile.RIGHT:
+			return cell + 1;
+		case Tile.DOWN:
+			return cell + width;
+		default:
+			return cell - 1;
+		}
+	}
+
+	/**
+	 * Gives a cell reached in this walk.
+	 * 
+	 * @param index the order the cell was reached in Precondition: 0 <= index
+	 *            < size().
+	 * @return the cell.
+	 */
+	int getCell(int index)
+	{
+		return queue[index];
+	}
+
+	/**
+	 * Finds the directions walked from the start to reach a cell.
+	 * 
+	 * @param cell the cell to find the walk to Precondition: the cell was
+	 *            reached in this walk.
+	 * @return the directions walked, in order.
+	 */
+	LinkedList<Integer> getPath(int cell)
+	{
+		LinkedList<Integer> path = new LinkedList<Integer>();
+		for (int start = queue[0]; cell != start;) {
+			int direction = directions[cell];
+			path.addFirst(direction);
+			cell = getAdjacent(cell, direction + 2 & 3);
+		}
+		return path;
+	}
+
+	/**
+	 * Checks whether there are cells left to walk from.
+	 * 
+	 * @return true if a cell reached has not been walked from yet, otherwise
+	 *         false.
+	 */
+	boolean hasNext()
+	{
+		return head < tail;
+	}
+
+	/**
+	 * Gives the next cell to walk from.
+	 * 
+	 * @return the earliest cell reached that has not been walked from yet
+	 *         Precondition: hasNext() is true.
+	 */
+	int next()
+	{
+		return queue[head++];
+	}
+
+	/**
+	 * Gives the number of cells reached in this walk.
+	 * 
+	 * @return the number of cells reached.
+	 */
+	int size()
+	{
+		return tail;
+	}
+
+	/**
+	 * Starts a new walk from the given cell, forgetting the last one.
+	 * 
+	 * @param cell the cell to start from.
+	 */
+	void start(int cell)
+	{
+		// Clear the marks only once the walk number runs out.
+		if (walk == Integer.MAX_VALUE) {
+			Arrays.fill(marks, 0);
+			walk = 0;
+		}
+		walk++;
+		head = 0;
+		tail = 0;
+		add(cell, Tile.UP);
+	}
+}
@@ -0,0 +1,297 @@
+package level;
+
+import java.util.Arrays;
+
+/**
+ * Finds the region of cells the player can walk to using bitboards. Each row
+ * of the level is stored as one or more longs, one bit per column, so a whole
+ * row of up to 64 cells is walked along at once by shifting, ANDing and ORing
+ * words instead of checking one pair of tiles at a time. The connectors of
+ * each colour facing each direction are turned into two boards of the edges
+ * the player can walk across, one for the edge to the right of each cell and
+ * one for the edge below it, and the region is flooded across those edges
+ * until it stops growing. Only one thread may use each object.
+ * 
+ * @author Austin Tripp and Sherman Ying
+ * @version October 18, 2026
+ */
+class RegionBoard
+{
+	// The number of colours a connector can have.
+	private static final int COLOURS = 8;
+
+	// Level dimensions, and the number of longs in each row.
+	private final int height;
+	private final int width;
+	private final int words;
+
+	// The cells that can be walked right from, and down from.
+	private final long[] rightEdges;
+	private final long[] downEdges;
+
+	// The cells the player can enter, and the cells being looked for.
+	private final long[] enterable;
+	private final long[] targets;
+
+	// The cells the player can walk to.
+	private final long[] region;
+
+	/**
+	 * Constructs an empty RegionBoard for levels of the given size.
+	 * 
+	 * @param height the number of rows in the level.
+	 * @param width the number of columns in the level.
+	 */
+	RegionBoard(int height, int width)
+	{
+		this.height = height;
+		this.width = width;
+		words = (width + 63) >>> 6;
+		rightEdges = new long[height * words];
+		downEdges = new long[height * words];
+		enterable = new long[height * words];
+		targets = new long[height * words];
+		region = new long[height * words];
+	}
+
+	/**
+	 * Checks whether a cell is in the region found by the last fill.
+	 * 
+	 * @param cell the cell to check.
+	 * @return true if the player can walk to the cell, otherwise false.
+	 */
+	boolean contains(int cell)
+	{
+		return (region[cell / width * words + (cell % width >>> 6)]
+				& 1L << cell % width) != 0;
+	}
+
+	/**
+	 * Copies the edges, enterable cells and targets of another board.
+	 * 
+	 * @param base the board to copy Precondition: base is the same size as
+	 *            this board.
+	 */
+	void copy(RegionBoard base)
+	{
+		System.arraycopy(base.rightEdges, 0, rightEdges, 0, rightEdges.length);
+		System.arraycopy(base.downEdges, 0, downEdges, 0, downEdges.length);
+		System.arraycopy(base.enterable, 0, enterable, 0, enterable.length);
+		System.arraycopy(base.targets, 0, targets, 0, targets.length);
+	}
+
+	/**
+	 * Floods the region the player can walk to from the given cell.
+	 * 
+	 * @param start the cell the player is standing on.
+	 */
+	void fill(int start)
+	{
+		Arrays.fill(region, 0);
+		region[start / width * words + (start % width >>> 6)] = 1L << start
+				% width;
+
+		// Sweep down and then up the rows until the region stops growing.
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (int row = 0; row < height; row++)
+				if (fillRow(row, row - 1))
+					changed = true;
+			for (int row = height - 2; row >= 0; row--)
+				if (fillRow(row, row + 1))
+					changed = true;
+		}
+	}
+
+	/**
+	 * Grows the region in a row by walking into it from a neighbouring row and
+	 * then along the row as far as possible.
+	 * 
+	 * @param row the row to grow.
+	 * @param from the neighbouring row to walk in from, which may be outside
+	 *            of the level.
+	 * @return true if the region grew, otherwise false.
+	 */
+	private boolean fillRow(int row, int from)
+	{
+		int first = row * words;
+		boolean grown = false;
+
+		// Walk across the edges between the two rows.
+		if (from >= 0 && from < height) {
+			int edges = Math.min(row, from) * words;
+			for (int word = 0; word < words; word++) {
+				long entered = region[from * words + word]
+						& downEdges[edges + word] & enterable[first + word]
+						& ~region[first + word];
+				if (entered != 0) {
+					region[first + word] |= entered;
+					grown = true;
+				}
+			}
+		}
+
+		// Walk right and left along the row until nothing new is reached.
+		boolean walking = true;
+		while (walking) {
+			walking = false;
+			for (int word = 0; word < words; word++) {
+				int index = first + word;
+				long cells = region[index];
+				long right = (cells & rightEdges[index]) << 1;
+				if (word > 0)
+					right |= (region[index - 1] & rightEdges[index - 1]) >>> 63;
+				long left = cells >>> 1;
+				if (word < words - 1)
+					left |= region[index + 1] << 63;
+				long entered = (right | left & rightEdges[index])
+						& enterable[index] & ~cells;
+				if (entered != 0) {
+					region[index] |= entered;
+					walking = true;
+					grown = true;
+				}
+			}
+		}
+		return grown;
+	}
+
+	/**
+	 * Finds the smallest cell in the region found by the last fill.
+	 * 
+	 * @return the smallest cell the player can walk to.
+	 */
+	int first()
+	{
+		return next(-1);
+	}
+
+	/**
+	 * Finds the next cell in the region found by the last fill.
+	 * 
+	 * @param cell the cell to look after, or -1 to look from the start.
+	 * @return the smallest cell in the region after the given one, or -1 if
+	 *         there are none.
+	 */
+	int next(int cell)
+	{
+		cell++;
+		int row = cell / width;
+		int col = cell % width;
+		while (row < height) {
+			int word = col >>> 6;
+			long cells = region[row * words + word] & -1L << (col & 63);
+			while (cells == 0 && ++word < words)
+				cells = region[row * words + word];
+			if (cells != 0) {
+				col = (word << 6) + Long.numberOfTrailingZeros(cells);
+				return row * width + col;
+			}
+			row++;
+			col = 0;
+		}
+		return -1;
+	}
+
+	/**
+	 * Checks whether the region found by the last fill holds a target.
+	 * 
+	 * @return true if the player can walk to a target, otherwise false.
+	 */
+	boolean reachesTarget()
+	{
+		for (int index = 0; index < region.length; index++)
+			if ((region[index] & targets[index]) != 0)
+				return true;
+		return false;
+	}
+
+	/**
+	 * Opens or closes the edge between a cell and its neighbour.
+	 * 
+	 * @param cell the cell on one side of the edge.
+	 * @param direction the direction of the neighbour Precondition: the
+	 *            neighbour is inside of the level.
+	 * @param open true if the player can walk across the edge, otherwise
+	 *            false.
+	 */
+	void setEdge(int cell, int direction, boolean open)
+	{
+		long[] edges = rightEdges;
+		switch (direction) {
+		case Tile.UP:
+			cell -= width;
+			edges = downEdges;
+			break;
+		case Tile.DOWN:
+			edges = downEdges;
+			break;
+		case Tile.LEFT:
+			cell--;
+			break;
+		}
+		int index = cell / width * words + (cell % width >>> 6);
+		long bit = 1L << cell % width;
+		if (open)
+			edges[index] |= bit;
+		else
+			edges[index] &= ~bit;
+	}
+
+	/**
+	 * Sets up the board for a level, replacing everything it held.
+	 * 
+	 * @param connectors the packed connectors of each cell, 3 bits per
+	 *            direction. A cell with no connectors has no open edges.
+	 * @param canEnter whether each cell can be entered by the player.
+	 */
+	void setLevel(int[] connectors, boolean[] canEnter)
+	{
+		// Lay out the connectors of each colour facing each direction.
+		long[][] sides = new long[COLOURS * 4][height * words];
+		Arrays.fill(enterable, 0);
+		Arrays.fill(targets, 0);
+		for (int cell = 0; cell < connectors.length; cell++) {
+			int index = cell / width * words + (cell % width >>> 6);
+			long bit = 1L << cell % width;
+			for (int direction = Tile.UP; direction <= Tile.LEFT; direction++)
+				sides[(connectors[cell] >>> 3 * direction & 7) * 4
+						+ direction][index] |= bit;
+			if (canEnter[cell])
+				enterable[index] |= bit;
+		}
+
+		// An edge is open where both sides have the same colour, other than
+		// no connector at all.
+		for (int row = 0; row < height; row++)
+			for (int word = 0; word < words; word++) {
+				int index = row * words + word;
+				long right = 0;
+				long down = 0;
+				for (int colour = 1; colour < COLOURS; colour++) {
+					long[] lefts = sides[colour * 4 + Tile.LEFT];
+					long neighbours = lefts[index] >>> 1;
+					if (word < words - 1)
+						neighbours |= lefts[index + 1] << 63;
+					right |= sides[colour * 4 + Tile.RIGHT][index] & neighbours;
+					if (row < height - 1)
+						down |= sides[colour * 4 + Tile.DOWN][index]
+								& sides[colour * 4 + Tile.UP][index + words];
+				}
+				rightEdges[index] = right;
+				downEdges[index] = down;
+			}
+	}
+
+	/**
+	 * Marks a cell as one being looked for by reachesTarget.
+	 * 
+	 * @param cell the cell to mark.
+	 */
+	void setTarget(int cell)
+	{
+		targets[cell / width * words + (cell % width >>> 6)] |= 1L << cell
+				% width;
+	}
+}
@@ -0,0 +1,412 @@
+package level;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The turns of the tiles in a level with no action tiles, written as a system
+ * of linear equations mod 4. Rotating left on a cell turns its tile left once
+ * and each of its eight neighbours right once, and turns add up the same in
+ * any order, so if x[r] is the number of left rotations made on cell r, the
+ * number of left turns of the tile on cell c is
+ * 
+ * x[c] - (the sum of x[r] over the neighbours r of c) (mod 4).
+ * 
+ * Routes out from each FinishTile are tried one at a time, ending on the start
+ * or on a cell the player could make their last rotation on. Each tile on a
+ * route must face one of a few ways to join its neighbours on the route,
+ * which adds one equation, and a route is dropped as soon as its equations
+ * have no solution. Every solution found gives the rotations to make on each
+ * cell, and the order to make them in is left to the solver.
+ * 
+ * @author Austin Tripp and Sherman Ying
+ * @version October 18, 2026
+ */
+class RotationSystem
+{
+	// The most cells searched along routes, and the most sets of rotations
+	// found.
+	private static final int MAX_STEPS = 20000;
+	private static final int MAX_SOLUTIONS = 64;
+
+	// Level dimensions.
+	private final int height;
+	private final int width;
+
+	// Kind and connectors of each tile, and the player's cell.
+	private final byte[] kind;
+	private final int[][] connectors;
+	private final int start;
+
+	// Whether each cell could ever be entered, and the variable of each cell
+	// that can be rotated on, or -1 if it cannot.
+	private final boolean[] enterable;
+	private final int[] variables;
+	private final int noOfVariables;
+
+	// The route being searched, the left turns chosen for each tile on it,
+	// and the tiles on it that add an equation, in order.
+	private final boolean[] onRoute;
+	private final int[] turns;
+	private final int[] equationCells;
+	private int noOfEquations;
+
+	// The sets of rotations found, and the number of cells searched.
+	private final List<Rotations> solutions;
+	private int steps;
+
+	/**
+	 * A set of rotations that leaves a route open to a FinishTile from the
+	 * cell to rotate on last.
+	 */
+	static final class Rotations
+	{
+		final int[] leftTurns;
+		final int last;
+
+		/**
+		 * Constructs a new set of rotations.
+		 * 
+		 * @param leftTurns the number of left rotations to make on each cell,
+		 *            mod 4.
+		 * @param last the cell the route starts from, which is rotated on
+		 *            last.
+		 */
+		Rotations(int[] leftTurns, int last)
+		{
+			this.leftTurns = leftTurns;
+			this.last = last;
+		}
+	}
+
+	/**
+	 * Constructs the system of turns of a level. Precondition: the level is
+	 * rotation only.
+	 * 
+	 * @param level the level to build the system of.
+	 * @param analysis the analysis of the level, used to leave out cells
+	 *            that can never be entered.
+	 */
+	RotationSystem(Level level, LevelAnalysis analysis)
+	{
+		height = level.getHeight();
+		width = level.getWidth();
+		int size = height * width;
+		kind = new byte[size];
+		connectors = new int[size][];
+		enterable = new boolean[size];
+		variables = new int[size];
+		int variable = 0;
+		for (int cell = 0; cell < size; cell++) {
+			Tile tile = level.tileAt(cell / width, cell % width);
+			kind[cell] = PackedLevel.kindOf(tile);
+			connectors[cell] = tile.getConnections();
+			enterable[cell] = analysis.isEnterable(cell / width, cell % width);
+			variables[cell] = kind[cell] == PackedLevel.TILE && enterable[cell]
+					? variable++ : -1;
+		}
+		noOfVariables = variable;
+		Point player = level.getPlayerPosition();
+		start = player.y * width + player.x;
+		onRoute = new boolean[size];
+		turns = new int[size];
+		equationCells = new int[size];
+		solutions = new ArrayList<Rotations>();
+	}
+
+	/**
+	 * Checks whether a level can be written as a system of turns, which is
+	 * when every tile in it is a plain tile, a StaticTile or a FinishTile.
+	 * 
+	 * @param level the level to check.
+	 * @return true if the level has no action tiles, otherwise false.
+	 */
+	static boolean isRotationOnly(Level level)
+	{
+		for (int row = 0; row < level.getHeight(); row++)
+			for (int col = 0; col < level.getWidth(); col++) {
+				byte k = PackedLevel.kindOf(level.tileAt(row, col));
+				if (k != PackedLevel.EMPTY && k != PackedLevel.TILE
+						&& k != PackedLevel.STATIC && k != PackedLevel.FINISH)
+					return false;
+			}
+		return true;
+	}
+
+	/**
+	 * Adds the equation fixing the number of left turns of a tile.
+	 * 
+	 * @param cell the cell of the tile.
+	 * @param leftTurns the number of left turns it must make.
+	 */
+	private void addEquation(int cell, int leftTurns)
+	{
+		turns[cell] = leftTurns;
+		equationCells[noOfEquations++] = cell;
+	}
+
+	/**
+	 * Finds sets of rotations that leave a route open to a FinishTile. Only
+	 * a limited number of routes are searched, so a level may have sets of
+	 * rotations that are not found.
+	 * 
+	 * @return the sets of rotations found.
+	 */
+	List<Rotations> findRotations()
+	{
+		solutions.clear();
+		steps = 0;
+		noOfEquations = 0;
+		Arrays.fill(onRoute, false);
+		for (int cell = 0; cell < kind.length; cell++)
+			if (kind[cell] == PackedLevel.FINISH && enterable[cell]) {
+				onRoute[cell] = true;
+				boolean stop = search(cell);
+				onRoute[cell] = false;
+				if (stop)
+					break;
+			}
+		return solutions;
+	}
+
+	/**
+	 * Finds the cell next to another one.
+	 * 
+	 * @param cell the cell to start from.
+	 * @param direction the direction to look in.
+	 * @return the neighbouring cell, or -1 if it is outside of the level.
+	 */
+	private int getAdjacent(int cell, int direction)
+	{
+		int row = cell / width;
+		int col = cell % width;
+		switch (direction) {
+		case Tile.UP:
+			return row > 0 ? cell - width : -1;
+		case Tile.RIGHT:
+			return col < width - 1 ? cell + 1 : -1;
+		case Tile.DOWN:
+			return row < height - 1 ? cell + width : -1;
+		default:
+			return col > 0 ? cell - 1 : -1;
+		}
+	}
+
+	/**
+	 * Finds how many times the tile on a cell turns left for each left
+	 * rotation made on another cell.
+	 * 
+	 * @param cell the cell of the tile.
+	 * @param rotated the cell rotated on.
+	 * @return the number of left turns, mod 4.
+	 */
+	private int getCoefficient(int cell, int rotated)
+	{
+		if (cell == rotated)
+			return 1;
+		if (Math.abs(cell / width - rotated / width) <= 1
+				&& Math.abs(cell % width - rotated % width) <= 1)
+			return 3;
+		return 0;
+	}
+
+	/**
+	 * Gives the colour of the side of a tile facing a direction, once the
+	 * tile has turned as chosen for the route.
+	 * 
+	 * @param cell the cell of the tile Precondition: the cell is on the
+	 *            route.
+	 * @param direction the direction the side faces.
+	 * @return the colour of the side.
+	 */
+	private int getSide(int cell, int direction)
+	{
+		if (kind[cell] != PackedLevel.TILE)
+			return connectors[cell][direction];
+		return connectors[cell][direction + turns[cell] & 3];
+	}
+
+	/**
+	 * Extends the route from its last cell in every way that keeps the
+	 * equations solvable, keeping the rotations of each route that ends on a
+	 * cell the player could finish on.
+	 * 
+	 * @param cell the last cell of the route.
+	 * @return true if the search should stop, otherwise false.
+	 */
+	private boolean search(int cell)
+	{
+		if (cell == start || variables[cell] >= 0) {
+			keep(solve(), cell);
+			if (solutions.size() >= MAX_SOLUTIONS)
+				return true;
+		}
+		if (++steps > MAX_STEPS)
+			return true;
+		for (int direction = Tile.UP; direction <= Tile.LEFT; direction++) {
+			int next = getAdjacent(cell, direction);
+			int colour = getSide(cell, direction);
+			if (next < 0 || onRoute[next] || !enterable[next] || colour == 0)
+				continue;
+
+			// Try each way the next tile could face that joins it to this
+			// one.
+			int opposite = direction + 2 & 3;
+			onRoute[next] = true;
+			if (kind[next] != PackedLevel.TILE) {
+				if (connectors[next][opposite] == colour && search(next))
+					return true;
+			} else
+				for (int leftTurns = 0; leftTurns < 4; leftTurns++)
+					if (connectors[next][opposite + leftTurns & 3] == colour) {
+						addEquation(next, leftTurns);
+						if (solve() != null && search(next))
+							return true;
+						noOfEquations--;
+					}
+			onRoute[next] = false;
+		}
+		return false;
+	}
+
+	/**
+	 * Keeps a set of rotations, unless an equal one was already kept.
+	 * 
+	 * @param values the value of each variable.
+	 * @param last the cell the route starts from.
+	 */
+	private void keep(int[] values, int last)
+	{
+		int[] leftTurns = new int[kind.length];
+		for (int cell = 0; cell < kind.length; cell++)
+			if (variables[cell] >= 0)
+				leftTurns[cell] = values[variables[cell]];
+		for (Rotations solution : solutions)
+			if (solution.last == last
+					&& Arrays.equals(solution.leftTurns, leftTurns))
+				return;
+		solutions.add(new Rotations(leftTurns, last));
+	}
+
+	/**
+	 * Solves the equations of the route so far. The equations are reduced
+	 * using pivots that are odd, which have inverses mod 4. Whatever is left
+	 * has only even numbers, so after halving it is solved mod 2, and the
+	 * variables without pivots are then given values of 0 or 1.
+	 * 
+	 * @return the value of each variable, mod 4, or null if there is no
+	 *         solution.
+	 */
+	private int[] solve()
+	{
+		int rows = noOfEquations;
+		int[][] matrix = new int[rows][noOfVariables];
+		int[] values = new int[rows];
+		for (int row = 0; row < rows; row++) {
+			int cell = equationCells[row];
+			for (int rotated = 0; rotated < kind.length; rotated++)
+				if (variables[rotated] >= 0)
+					matrix[row][variables[rotated]] = getCoefficient(cell,
+							rotated);
+			values[row] = turns[cell];
+		}
+
+		// Reduce mod 4 using odd pivots.
+		int[] pivots = new int[noOfVariables];
+		Arrays.fill(pivots, -1);
+		int rank = 0;
+		for (int col = 0; col < noOfVariables && rank < rows; col++) {
+			int pivot = rank;
+			while (pivot < rows && matrix[pivot][col] % 2 == 0)
+				pivot++;
+			if (pivot == rows)
+				continue;
+			swap(matrix, values, pivot, rank);
+
+			// Odd numbers are their own inverses mod 4.
+			int inverse = matrix[rank][col];
+			for (int c = 0; c < noOfVariables; c++)
+				matrix[rank][c] = matrix[rank][c] * inverse & 3;
+			values[rank] = values[rank] * inverse & 3;
+			for (int row = 0; row < rows; row++) {
+				int factor = matrix[row][col];
+				if (row != rank && factor != 0) {
+					for (int c = 0; c < noOfVariables; c++)
+						matrix[row][c] = matrix[row][c] - factor
+								* matrix[rank][c] & 3;
+					values[row] = values[row] - factor * values[rank] & 3;
+				}
+			}
+			pivots[col] = rank++;
+		}
+
+		// Reduce the rest mod 2 after halving.
+		int[] solution = new int[noOfVariables];
+		int halfRank = rank;
+		for (int row = rank; row < rows; row++) {
+			if (values[row] % 2 != 0)
+				return null;
+			for (int c = 0; c < noOfVariables; c++)
+				matrix[row][c] >>= 1;
+			values[row] >>= 1;
+		}
+		int[] halfPivots = new int[noOfVariables];
+		Arrays.fill(halfPivots, -1);
+		for (int col = 0; col < noOfVariables && halfRank < rows; col++) {
+			if (pivots[col] >= 0)
+				continue;
+			int pivot = halfRank;
+			while (pivot < rows && matrix[pivot][col] == 0)
+				pivot++;
+			if (pivot == rows)
+				continue;
+			swap(matrix, values, pivot, halfRank);
+			for (int row = rank; row < rows; row++)
+				if (row != halfRank && matrix[row][col] != 0) {
+					for (int c = 0; c < noOfVariables; c++)
+						matrix[row][c] ^= matrix[halfRank][c];
+					values[row] ^= values[halfRank];
+				}
+			halfPivots[col] = halfRank++;
+		}
+		for (int row = halfRank; row < rows; row++)
+			if (values[row] != 0)
+				return null;
+		for (int col = 0; col < noOfVariables; col++)
+			if (halfPivots[col] >= 0)
+				solution[col] = values[halfPivots[col]];
+
+		// Work out the variables with odd pivots from the rest.
+		for (int col = 0; col < noOfVariables; col++)
+			if (pivots[col] >= 0) {
+				int row = pivots[col];
+				int value = values[row];
+				for (int c = 0; c < noOfVariables; c++)
+					if (c != col)
+						value -= matrix[row][c] * solution[c];
+				solution[col] = value & 3;
+			}
+		return solution;
+	}
+
+	/**
+	 * Swaps two equations.
+	 * 
+	 * @param matrix the coefficients of the equations.
+	 * @param values the right hand sides of the equations.
+	 * @param first the first equation to swap.
+	 * @param second the second equation to swap.
+	 */
+	private static void swap(int[][] matrix, int[] values, int first,
+			int second)
+	{
+		int[] row = matrix[first];
+		matrix[first] = matrix[second];
+		matrix[second] = row;
+		int value = values[first];
+		values[first] = values[second];
+		values[second] = value;
+	}
+}
@@ -2,13 +2,14 @@ package level;
 
 import gui.SolutionPanel;
 
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.util.Arrays;
 import java.util.LinkedList;
+import java.util.concurrent.CancellationException;
 
 /**
  * Solves a level in Rotary.
@@ -28,8 +29,15 @@ public class SolutionMaker implements Runnable
 	// Containing panel.
 	private final SolutionPanel holder;
 
-	// Running thread.
+	// Solutions to every level solved before, by content.
+	private final SolutionStore store;
+
+	// Running thread, and the progress of its search.
 	private Thread solver;
+	private SolverProgress progress;
+
+	// Solver for the whole pack, or null if solving a single level.
+	private PackSolver packSolver;
 
 	/**
 	 * Constructs a new SolutionMaker.
@@ -43,9 +51,23 @@ public class SolutionMaker implements Runnable
 		isPossible = true;
 		solving = false;
 		solver = null;
+		progress = new SolverProgress();
+		packSolver = null;
+		store = new SolutionStore();
 		this.holder = holder;
 	}
 
+	/**
+	 * Gives the progress of the level being solved, which is updated while
+	 * the solver runs.
+	 * 
+	 * @return the progress of the current search.
+	 */
+	public SolverProgress getProgress()
+	{
+		return progress;
+	}
+
 	/**
 	 * Sets the level pack to solve to the one specified.
 	 * 
@@ -74,15 +96,64 @@ public class SolutionMaker implements Runnable
 	{
 		solving = true;
 		currentLevel = level;
+		progress = new SolverProgress();
+		packSolver = null;
 		solver = new Thread(this);
 		solver.start();
 	}
 
 	/**
-	 * Ends the solving process prematurely.
+	 * Solves every level in the level pack at once, then writes all the
+	 * solutions found to the solution file together. Precondition: a level
+	 * pack has been set and the index given is valid for that level pack.
+	 * 
+	 * @param level the index of the level whose progress is reported, and
+	 *            whose result decides isPossible().
+	 * @param threads the number of levels to solve at once Precondition:
+	 *            threads >= 1.
+	 * @param timeout the most milliseconds to spend on each level, or 0 for
+	 *            no limit.
+	 */
+	public void solveAll(int level, final int threads, final long timeout)
+	{
+		solving = true;
+		currentLevel = level;
+		packSolver = new PackSolver(levelPack, createSettings());
+		progress = packSolver.getProgress(level);
+		solver = new Thread(new Runnable()
+		{
+			public void run()
+			{
+				solvePack(threads, timeout);
+			}
+		});
+		solver.start();
+	}
+
+	/**
+	 * Creates the settings levels are solved with. The visited states may use
+	 * half of the Java heap, so a level too large to solve reaches the limit
+	 * and is reported as not solved instead of running out of memory.
+	 * 
+	 * @return the settings to solve with.
+	 */
+	private static SolverSettings createSettings()
+	{
+		SolverSettings settings = new SolverSettings();
+		settings.setMemoryLimit(Runtime.getRuntime().maxMemory() / 2);
+		return settings;
+	}
+
+	/**
+	 * Ends the solving process prematurely. The solver stops at the next
+	 * point it checks for cancellation, without writing a solution or
+	 * notifying the SolutionPanel.
 	 */
 	public void terminateSolving()
 	{
+		progress.cancel();
+		if (packSolver != null)
+			packSolver.cancel();
 		if (solver != null)
 			solver.interrupt();
 	}
@@ -113,8 +184,27 @@ public class SolutionMaker implements Runnable
 	 */
 	public void run()
 	{
-		LinkedList<Integer> solution = LevelSolution
-				.findLevelSolution(levelPack[currentLevel]);
+		// Use the stored solution if an equal level was solved before.
+		LevelSolution stored = store.find(levelPack[currentLevel]);
+		LinkedList<Integer> solution;
+		try {
+			if (stored != null)
+				solution = stored.getMoves();
+			else
+				solution = LevelSolution.findLevelSolution(
+						levelPack[currentLevel], createSettings(), progress);
+		} catch (CancellationException e) {
+			solving = false;
+			return;
+		} catch (IllegalStateException e) {
+			// The solver reached its memory limit or could not use its files,
+			// so report the level as not solved rather than leave it solving.
+			solutionFailed();
+			return;
+		} catch (OutOfMemoryError e) {
+			solutionFailed();
+			return;
+		}
 		solving = false;
 		isPossible = solution != null;
 		if (isPossible)
@@ -124,36 +214,100 @@ public class SolutionMaker implements Runnable
 	}
 
 	/**
-	 * Writes the solution to the current level to a file.
+	 * Reads the existing solutions to the level pack.
 	 * 
-	 * @param levelSolution the list of moves that solve the current level.
+	 * @return the solutions, or an empty array if there are none.
 	 */
-	private void writeSolution(LinkedList<Integer> levelSolution)
+	private LevelSolution[] readSolutions()
+	{
+		try {
+			return Arrays.copyOf(SolutionStore.readSolutions(new File(
+					"data\\solutions\\" + packName + ".soln")),
+					levelPack.length);
+		} catch (Exception e) {
+			return new LevelSolution[levelPack.length];
+		}
+	}
+
+	/**
+	 * Reports the current level as not solved after the solver stopped with
+	 * an error.
+	 */
+	private void solutionFailed()
 	{
+		solving = false;
+		isPossible = false;
+		notifyCompletion();
+	}
 
-		// Open the existing solutions.
-		LevelSolution[] solutions = null;
+	/**
+	 * Solves the whole level pack, keeping any existing solutions for levels
+	 * that were not solved this time.
+	 * 
+	 * @param threads the number of levels to solve at once.
+	 * @param timeout the most milliseconds to spend on each level.
+	 */
+	private void solvePack(int threads, long timeout)
+	{
 		try {
+			packSolver.solve(threads, timeout);
+		} catch (InterruptedException e) {
+			solving = false;
+			return;
+		}
 
-			ObjectInputStream in = new ObjectInputStream(new FileInputStream(
-					"data\\solutions\\" + packName + ".soln"));
-			solutions = (LevelSolution[]) in.readObject();
-			in.close();
-		} catch (Exception e) {
-			solutions = new LevelSolution[levelPack.length];
+		// The levels may all stop before the interrupt arrives, so check
+		// for cancelling as well.
+		if (packSolver.isCancelled()) {
+			solving = false;
+			return;
 		}
 
+		// Merge the new solutions into the existing ones.
+		LevelSolution[] solutions = readSolutions();
+		for (int level = 0; level < levelPack.length; level++)
+			if (packSolver.getStatus(level) == PackSolver.SOLVED)
+				solutions[level] = packSolver.getSolution(level);
+		writeSolutions(solutions);
+		try {
+			store.storeAll(packSolver.getSolutions());
+		} catch (IOException e) {
+		}
+		solving = false;
+		isPossible = packSolver.getStatus(currentLevel) == PackSolver.SOLVED;
+		notifyCompletion();
+	}
+
+	/**
+	 * Writes the solution to the current level to a file.
+	 * 
+	 * @param levelSolution the list of moves that solve the current level.
+	 */
+	private void writeSolution(LinkedList<Integer> levelSolution)
+	{
+
 		// Insert this solution into the existing ones.
+		LevelSolution[] solutions = readSolutions();
 		solutions[currentLevel] = new LevelSolution(levelPack[currentLevel],
 				levelSolution);
+		writeSolutions(solutions);
+		try {
+			store.store(new LevelSolution(levelPack[currentLevel],
+					levelSolution));
+		} catch (IOException e) {
+		}
+	}
 
-		// Write the whole pack to a file.
+	/**
+	 * Writes the solutions to the whole pack to its solution file.
+	 * 
+	 * @param solutions the solutions to write.
+	 */
+	private void writeSolutions(LevelSolution[] solutions)
+	{
 		try {
-			ObjectOutputStream out = new ObjectOutputStream(
-					new FileOutputStream("data\\solutions\\" + packName
-							+ ".soln"));
-			out.writeObject(solutions);
-			out.close();
+			PackSolver.writeSolutions(solutions, new File("data\\solutions\\"
+					+ packName + ".soln"));
 		} catch (Exception e) {
 		}
 	}
@@ -0,0 +1,151 @@
+package level;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+
+/**
+ * Stores solutions by the contents of the levels they solve, so a solution
+ * found once can be reused by any pack holding an equal level, even after the
+ * pack is published again. Each solution is kept in a file named after the
+ * level's content key, and is only used for a level equal to the one it was
+ * found for.
+ * 
+ * @author Austin Tripp and Sherman Ying
+ * @version October 18, 2026
+ */
+public class SolutionStore
+{
+	// The directory the solutions are stored in.
+	private final File directory;
+
+	/**
+	 * Constructs a SolutionStore using the default directory,
+	 * data\solutions\store.
+	 */
+	public SolutionStore()
+	{
+		this(new File("data\\solutions\\store"));
+	}
+
+	/**
+	 * Constructs a SolutionStore using the given directory.
+	 * 
+	 * @param directory the directory to store solutions in.
+	 */
+	public SolutionStore(File directory)
+	{
+		this.directory = directory;
+	}
+
+	/**
+	 * Finds the stored solution to a level.
+	 * 
+	 * @param level the level to find the solution of.
+	 * @return a solution to the level, with the level's name, or null if none
+	 *         is stored.
+	 */
+	public LevelSolution find(Level level)
+	{
+		try {
+			for (LevelSolution solution : readSolutions(getFile(level)))
+				if (solution != null && solution.equals(level))
+					return new LevelSolution(level, solution.getMoves());
+		} catch (Exception e) {
+		}
+		return null;
+	}
+
+	/**
+	 * Finds the stored solutions to every level in a pack.
+	 * 
+	 * @param levelPack the levels to find the solutions of.
+	 * @return the solution to each level, or null for levels without one.
+	 */
+	public LevelSolution[] findAll(Level[] levelPack)
+	{
+		LevelSolution[] solutions = new LevelSolution[levelPack.length];
+		for (int level = 0; level < levelPack.length; level++)
+			solutions[level] = find(levelPack[level]);
+		return solutions;
+	}
+
+	/**
+	 * Gives the file holding the solutions of levels with the same content
+	 * key as a level.
+	 * 
+	 * @param level the level to find the file of.
+	 * @return the file the level's solution is stored in.
+	 */
+	private File getFile(Level level)
+	{
+		return new File(directory, String.format("%016x.soln",
+				level.getContentKey()));
+	}
+
+	/**
+	 * Reads an array of solutions from a file.
+	 * 
+	 * @param file the file to read.
+	 * @return the solutions in the file.
+	 * @throws IOException if the file cannot be read.
+	 * @throws ClassNotFoundException if the file does not hold solutions.
+	 */
+	public static LevelSolution[] readSolutions(File file)
+			throws IOException, ClassNotFoundException
+	{
+		ObjectInputStream in = new ObjectInputStream(new FileInputStream(file));
+		try {
+			return (LevelSolution[]) in.readObject();
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Stores the solution to a level, replacing any stored solution to an
+	 * equal level. Precondition: the solution has not been stepped through.
+	 * 
+	 * @param solution the solution to store.
+	 * @throws IOException if the solution cannot be written.
+	 */
+	public void store(LevelSolution solution) throws IOException
+	{
+		directory.mkdirs();
+		File file = getFile(solution);
+
+		// Levels with the same key share a file, though this is very rare.
+		LevelSolution[] solutions;
+		try {
+			solutions = readSolutions(file);
+		} catch (Exception e) {
+			solutions = new LevelSolution[0];
+		}
+		int index = 0;
+		while (index < solutions.length && !solution.equals(solutions[index]))
+			index++;
+		if (index == solutions.length) {
+			LevelSolution[] grown = new LevelSolution[index + 1];
+			System.arraycopy(solutions, 0, grown, 0, index);
+			solutions = grown;
+		}
+		solutions[index] = solution;
+		PackSolver.writeSolutions(solutions, file);
+	}
+
+	/**
+	 * Stores the solutions to a pack of levels. Precondition: none of the
+	 * solutions have been stepped through.
+	 * 
+	 * @param solutions the solutions to store, with null for levels without
+	 *            one.
+	 * @throws IOException if a solution cannot be written.
+	 */
+	public void storeAll(LevelSolution[] solutions) throws IOException
+	{
+		for (LevelSolution solution : solutions)
+			if (solution != null)
+				store(solution);
+	}
+}
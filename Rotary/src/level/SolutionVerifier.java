@@ -0,0 +1,251 @@
+package level;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Checks stored solutions by replaying them against the levels of their
+ * packs. A solution is invalid if one of its moves cannot be made, and stale
+ * if every move can be made but the player does not end on a FinishTile,
+ * which happens when a level is edited after it was solved. Moves are
+ * replayed on packed states rather than on copies of the level, so every
+ * stored solution can be checked in a few seconds after a change to the game
+ * rules. Run with no arguments to check every pack in data\levels against
+ * data\solutions.
+ * 
+ * @author Austin Tripp and Sherman Ying
+ * @version October 18, 2026
+ */
+public class SolutionVerifier
+{
+	/**
+	 * The solution ends with the player on a FinishTile.
+	 */
+	public static final int VALID = 0;
+
+	/**
+	 * There is no solution stored for the level.
+	 */
+	public static final int MISSING = 1;
+
+	/**
+	 * One of the moves of the solution cannot be made.
+	 */
+	public static final int ILLEGAL_MOVE = 2;
+
+	/**
+	 * Every move can be made, but the player does not end on a FinishTile.
+	 */
+	public static final int UNFINISHED = 3;
+
+	// The names of the results, by their codes.
+	private static final String[] RESULTS = { "valid", "missing",
+			"illegal move", "unfinished" };
+
+	// Where the packs and their solution files are.
+	private final File levelDirectory;
+	private final File solutionDirectory;
+
+	/**
+	 * Constructs a SolutionVerifier for the packs in one directory and their
+	 * solution files in another.
+	 * 
+	 * @param levelDirectory the directory holding the .pck files.
+	 * @param solutionDirectory the directory holding the .soln files.
+	 */
+	public SolutionVerifier(File levelDirectory, File solutionDirectory)
+	{
+		this.levelDirectory = levelDirectory;
+		this.solutionDirectory = solutionDirectory;
+	}
+
+	/**
+	 * Checks every pack and reports the solutions that are not valid. The
+	 * optional arguments are the level directory, the solution directory and
+	 * the number of threads, in that order. Exits with 1 if any solution is
+	 * not valid.
+	 * 
+	 * @param args the optional arguments.
+	 */
+	public static void main(String[] args)
+	{
+		System.setProperty("java.awt.headless", "true");
+		File levelDirectory = new File(args.length > 0 ? args[0]
+				: "data\\levels");
+		File solutionDirectory = new File(args.length > 1 ? args[1]
+				: "data\\solutions");
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime
+				.getRuntime().availableProcessors();
+		try {
+			long start = System.currentTimeMillis();
+			int problems = new SolutionVerifier(levelDirectory,
+					solutionDirectory).verifyAll(threads);
+			System.out.println(problems + " problems found in "
+					+ (System.currentTimeMillis() - start) + " ms.");
+			System.exit(problems == 0 ? 0 : 1);
+		} catch (Exception e) {
+			System.err.println("Could not check the solutions: " + e);
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Finds the first move of a solution that goes wrong.
+	 * 
+	 * @param level the level to replay the moves on. It is not changed.
+	 * @param moves the moves of the solution.
+	 * @return -1 if the moves end with the player on a FinishTile, the index
+	 *         of the first move that cannot be made, or the number of moves if
+	 *         every move can be made but the player does not end on a
+	 *         FinishTile.
+	 */
+	public static int findError(Level level, List<Integer> moves)
+	{
+		// Every rotation the game allows must be kept, so no analysis is used.
+		PackedLevel packedLevel = new PackedLevel(level, null);
+		PackedLevel.State state = packedLevel.encode(level);
+		int index = 0;
+		for (int move : moves) {
+			int cell = packedLevel.getPlayer(state);
+			if (move >= Tile.UP && move <= Tile.LEFT) {
+				int next = packedLevel.getNeighbour(state, cell, move);
+				if (next < 0)
+					return index;
+				state = packedLevel.moveTo(state, next);
+			} else if (move == LevelSolution.ROTATE_LEFT
+					|| move == LevelSolution.ROTATE_RIGHT) {
+				if (!packedLevel.canRotate(state, cell))
+					return index;
+				state = move == LevelSolution.ROTATE_LEFT ? packedLevel
+						.rotateLeft(state, cell) : packedLevel.rotateRight(
+						state, cell);
+			} else if (move == LevelSolution.ACTIVATE) {
+				if (!packedLevel.canActivate(state, cell))
+					return index;
+				state = packedLevel.activate(state, cell);
+			} else
+				return index;
+			index++;
+		}
+		return packedLevel.isFinish(packedLevel.getPlayer(state)) ? -1 : index;
+	}
+
+	/**
+	 * Reads a level pack from a file.
+	 * 
+	 * @param file the .pck file to read.
+	 * @return the levels of the pack.
+	 * @throws IOException if the file cannot be read.
+	 * @throws ClassNotFoundException if the file does not hold a pack.
+	 */
+	private static Level[] readPack(File file) throws IOException,
+			ClassNotFoundException
+	{
+		ObjectInputStream in = new ObjectInputStream(new FileInputStream(file));
+		try {
+			return (Level[]) in.readObject();
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Checks a stored solution against the level it should solve.
+	 * 
+	 * @param level the level, as it is in its pack.
+	 * @param solution the stored solution, or null if there is none.
+	 * @return VALID, MISSING, ILLEGAL_MOVE or UNFINISHED.
+	 */
+	public static int verify(Level level, LevelSolution solution)
+	{
+		if (solution == null)
+			return MISSING;
+		List<Integer> moves = solution.getMoves();
+		int error = findError(level, moves);
+		if (error < 0)
+			return VALID;
+		return error < moves.size() ? ILLEGAL_MOVE : UNFINISHED;
+	}
+
+	/**
+	 * Checks the solutions of every pack in the level directory, several
+	 * levels at a time, and reports each solution that is not valid.
+	 * 
+	 * @param threads the number of levels checked at once Precondition:
+	 *            threads >= 1.
+	 * @return the number of solutions that are not valid.
+	 * @throws IOException if a pack cannot be read.
+	 * @throws ClassNotFoundException if a file does not hold a pack.
+	 * @throws InterruptedException if the thread is interrupted while
+	 *             waiting.
+	 */
+	public int verifyAll(int threads) throws IOException,
+			ClassNotFoundException, InterruptedException
+	{
+		File[] packFiles = levelDirectory.listFiles();
+		if (packFiles == null)
+			throw new IOException(levelDirectory + " is not a directory.");
+		Arrays.sort(packFiles);
+
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			// Start checking every level before reporting any of them.
+			ArrayList<String> names = new ArrayList<String>();
+			ArrayList<Future<Integer>> results =
+					new ArrayList<Future<Integer>>();
+			for (File packFile : packFiles) {
+				String packName = packFile.getName();
+				if (!packName.endsWith(".pck"))
+					continue;
+				packName = packName.substring(0, packName.length() - 4);
+				Level[] levelPack = readPack(packFile);
+				LevelSolution[] solutions;
+				try {
+					solutions = SolutionStore.readSolutions(new File(
+							solutionDirectory, packName + ".soln"));
+				} catch (IOException e) {
+					solutions = new LevelSolution[0];
+				}
+				for (int level = 0; level < levelPack.length; level++) {
+					final Level levelData = levelPack[level];
+					final LevelSolution solution = level < solutions.length
+							? solutions[level] : null;
+					names.add(packName + " #" + (level + 1) + " \""
+							+ levelData + "\"");
+					results.add(pool.submit(new Callable<Integer>() {
+						public Integer call()
+						{
+							return verify(levelData, solution);
+						}
+					}));
+				}
+			}
+
+			int problems = 0;
+			for (int index = 0; index < results.size(); index++) {
+				int result = results.get(index).get();
+				if (result != VALID) {
+					System.out.println(names.get(index) + ": "
+							+ RESULTS[result]);
+					problems++;
+				}
+			}
+			System.out.println("Checked " + results.size() + " solutions.");
+			return problems;
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+}
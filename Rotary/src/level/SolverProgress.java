@@ -0,0 +1,186 @@
+package level;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Reports the progress of the solver while it searches, and lets the search be
+ * cancelled from another thread. The solver updates the progress as it goes,
+ * so it can be read at any time while the search runs.
+ * 
+ * @author Austin Tripp and Sherman Ying
+ * @version October 18, 2026
+ */
+public class SolverProgress
+{
+	// Whether the search should stop.
+	private volatile boolean cancelled;
+
+	// The time the search started, in nanoseconds.
+	private volatile long startTime;
+
+	// How far the search has gone.
+	private volatile long statesExpanded;
+	private volatile long frontierSize;
+	private volatile int depth;
+
+	// Memory used to remember visited states, and how many are remembered.
+	private volatile long memoryUsage;
+	private volatile long statesStored;
+
+	/**
+	 * Constructs the progress of a search that has not started.
+	 */
+	public SolverProgress()
+	{
+		cancelled = false;
+		start();
+	}
+
+	/**
+	 * Asks the search to stop. The solver stops soon after by throwing a
+	 * CancellationException.
+	 */
+	public void cancel()
+	{
+		cancelled = true;
+	}
+
+	/**
+	 * Stops the search if it was cancelled, or if the thread running it was
+	 * interrupted.
+	 * 
+	 * @throws CancellationException if the search should stop.
+	 */
+	void checkCancelled()
+	{
+		if (cancelled || Thread.currentThread().isInterrupted())
+			throw new CancellationException("The solver was cancelled.");
+	}
+
+	/**
+	 * Records that more states were expanded. Only the thread running the
+	 * search may call this.
+	 * 
+	 * @param states the number of states expanded.
+	 */
+	void expanded(long states)
+	{
+		statesExpanded += states;
+	}
+
+	/**
+	 * Gives the average memory used to remember each visited state.
+	 * 
+	 * @return the number of bytes per state, or 0 if none are stored.
+	 */
+	public long getBytesPerState()
+	{
+		long stored = statesStored;
+		return stored == 0 ? 0 : memoryUsage / stored;
+	}
+
+	/**
+	 * Gives the depth being searched. This is the number of actions taken to
+	 * reach the current layer, or the bound on the total number of actions
+	 * for an A* or iterative deepening search.
+	 * 
+	 * @return the current depth.
+	 */
+	public int getDepth()
+	{
+		return depth;
+	}
+
+	/**
+	 * Gives the number of states waiting to be expanded. For an iterative
+	 * deepening search, this is the length of the current path instead.
+	 * 
+	 * @return the size of the frontier.
+	 */
+	public long getFrontierSize()
+	{
+		return frontierSize;
+	}
+
+	/**
+	 * Gives the memory used to remember visited states. For an external
+	 * search, this is the size of the files holding them.
+	 * 
+	 * @return the memory used in bytes.
+	 */
+	public long getMemoryUsage()
+	{
+		return memoryUsage;
+	}
+
+	/**
+	 * Gives the number of states expanded so far.
+	 * 
+	 * @return the number of states expanded.
+	 */
+	public long getStatesExpanded()
+	{
+		return statesExpanded;
+	}
+
+	/**
+	 * Gives the average number of states expanded each second since the
+	 * search started.
+	 * 
+	 * @return the number of states expanded per second.
+	 */
+	public long getStatesPerSecond()
+	{
+		long elapsed = System.nanoTime() - startTime;
+		if (elapsed <= 0)
+			return 0;
+		return (long) (statesExpanded * 1e9 / elapsed);
+	}
+
+	/**
+	 * Checks whether the search was asked to stop.
+	 * 
+	 * @return true if the search was cancelled, otherwise false.
+	 */
+	public boolean isCancelled()
+	{
+		return cancelled;
+	}
+
+	/**
+	 * Records the depth being searched and the size of the frontier.
+	 * 
+	 * @param depth the current depth.
+	 * @param frontierSize the number of states waiting to be expanded.
+	 */
+	void setLayer(int depth, long frontierSize)
+	{
+		this.depth = depth;
+		this.frontierSize = frontierSize;
+	}
+
+	/**
+	 * Records the memory used to remember visited states.
+	 * 
+	 * @param memoryUsage the memory used in bytes.
+	 * @param statesStored the number of states the memory holds.
+	 */
+	void setMemoryUsage(long memoryUsage, long statesStored)
+	{
+		this.memoryUsage = memoryUsage;
+		this.statesStored = statesStored;
+	}
+
+	/**
+	 * Resets the progress as a new search starts.
+	 */
+	void start()
+	{
+		startTime = System.nanoTime();
+		statesExpanded = 0;
+		frontierSize = 0;
+		depth = 0;
+		memoryUsage = 0;
+		statesStored = 0;
+	}
+}
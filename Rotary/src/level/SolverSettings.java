@@ -0,0 +1,182 @@
+package level;
+
+import java.io.File;
+
+/**
+ * Stores the settings used when searching for the solution to a level.
+ * 
+ * @author Austin Tripp and Sherman Ying
+ * @version October 18, 2026
+ */
+public class SolverSettings
+{
+	/**
+	 * Searches every state reachable in n actions before any reachable in n + 1
+	 * actions. This is the reference strategy.
+	 */
+	public static final int BREADTH_FIRST = 0;
+
+	/**
+	 * Searches the states that look closest to a solution first, guided by a
+	 * lower bound on the number of actions left. Finds solutions with the same
+	 * number of actions as BREADTH_FIRST, while expanding fewer states.
+	 */
+	public static final int A_STAR = 1;
+
+	/**
+	 * Searches depth first, repeating the search with a larger bound on the
+	 * number of actions until a solution is found. Only the current path and
+	 * a fixed size table of recently searched states are kept, so the memory
+	 * limit is never exceeded, at the cost of searching some states more than
+	 * once. When no memory limit is set, the table uses 16 MB.
+	 */
+	public static final int ITERATIVE_DEEPENING = 2;
+
+	/**
+	 * Searches like BREADTH_FIRST, but keeps the layers of the search and the
+	 * visited states in files in the scratch directory. Only one part of the
+	 * visited states is held in memory at a time, so levels with more states
+	 * than fit in memory can still be solved.
+	 */
+	public static final int EXTERNAL_BREADTH_FIRST = 3;
+
+	/**
+	 * Solves levels with no action tiles by linear algebra on the turns of
+	 * their tiles mod 4, without searching their states. The solutions found
+	 * are not always the shortest. Levels with action tiles, or that could
+	 * not be solved this way, are searched like BREADTH_FIRST.
+	 */
+	public static final int ALGEBRAIC = 4;
+
+	// The search strategy to use, and how many threads it may use.
+	private int strategy;
+	private int threads;
+
+	// Memory settings for the visited state table.
+	private long memoryLimit;
+	private boolean offHeap;
+
+	// Directory holding the files of an external search.
+	private File scratchDirectory;
+
+	/**
+	 * Constructs the default settings: a breadth first search on one thread
+	 * with no memory limit, with the visited states kept on the Java heap.
+	 * External searches keep their files in data/search.
+	 */
+	public SolverSettings()
+	{
+		strategy = BREADTH_FIRST;
+		threads = 1;
+		memoryLimit = Long.MAX_VALUE;
+		offHeap = false;
+		scratchDirectory = new File("data", "search");
+	}
+
+	/**
+	 * Gives the most memory the solver may use to remember visited states.
+	 * 
+	 * @return the memory limit in bytes.
+	 */
+	public long getMemoryLimit()
+	{
+		return memoryLimit;
+	}
+
+	/**
+	 * Gives the directory an external search keeps its files in.
+	 * 
+	 * @return the scratch directory.
+	 */
+	public File getScratchDirectory()
+	{
+		return scratchDirectory;
+	}
+
+	/**
+	 * Gives the search strategy used by the solver.
+	 * 
+	 * @return BREADTH_FIRST, A_STAR, ITERATIVE_DEEPENING,
+	 *         EXTERNAL_BREADTH_FIRST or ALGEBRAIC.
+	 */
+	public int getStrategy()
+	{
+		return strategy;
+	}
+
+	/**
+	 * Gives the number of threads a breadth first search may use.
+	 * 
+	 * @return the number of threads.
+	 */
+	public int getThreads()
+	{
+		return threads;
+	}
+
+	/**
+	 * Checks whether visited states are kept outside of the Java heap.
+	 * 
+	 * @return true if visited states are stored off the heap, otherwise
+	 *         false.
+	 */
+	public boolean isOffHeap()
+	{
+		return offHeap;
+	}
+
+	/**
+	 * Sets the most memory the solver may use to remember visited states.
+	 * 
+	 * @param memoryLimit the memory limit in bytes.
+	 */
+	public void setMemoryLimit(long memoryLimit)
+	{
+		this.memoryLimit = memoryLimit;
+	}
+
+	/**
+	 * Sets whether visited states are kept outside of the Java heap, where
+	 * they do not add to garbage collection pauses.
+	 * 
+	 * @param offHeap true to store visited states off the heap.
+	 */
+	public void setOffHeap(boolean offHeap)
+	{
+		this.offHeap = offHeap;
+	}
+
+	/**
+	 * Sets the directory an external search keeps its files in. Each search
+	 * creates its own directory inside it, which is deleted once the search
+	 * ends.
+	 * 
+	 * @param scratchDirectory the scratch directory.
+	 */
+	public void setScratchDirectory(File scratchDirectory)
+	{
+		this.scratchDirectory = scratchDirectory;
+	}
+
+	/**
+	 * Sets the search strategy used by the solver.
+	 * 
+	 * @param strategy BREADTH_FIRST, A_STAR, ITERATIVE_DEEPENING,
+	 *            EXTERNAL_BREADTH_FIRST or ALGEBRAIC.
+	 */
+	public void setStrategy(int strategy)
+	{
+		this.strategy = strategy;
+	}
+
+	/**
+	 * Sets the number of threads a breadth first search may use. The solution
+	 * found is the same for any number of threads.
+	 * 
+	 * @param threads the number of threads Precondition: threads >= 1.
+	 */
+	public void setThreads(int threads)
+	{
+		this.threads = threads;
+	}
+}
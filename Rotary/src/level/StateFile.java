@@ -0,0 +1,207 @@
+package level;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A file of packed states, each stored with the index of the state it was
+ * reached from. States are appended through a buffered stream and read back
+ * a window of records at a time, so only a small part of the file is ever
+ * held in memory. The file is read rather than memory-mapped, since a mapped
+ * file cannot be deleted on Windows until the mapping is garbage collected.
+ * The stream and reader can each be closed while the file is not in use, so
+ * a search with many files does not keep all of them open.
+ * 
+ * @author Austin Tripp and Sherman Ying
+ * @version October 18, 2026
+ */
+class StateFile
+{
+	// The most bytes read into memory at once.
+	private static final int WINDOW_BYTES = 1 << 16;
+
+	// Size of the write buffer in bytes.
+	private static final int BUFFER_SIZE = 1 << 13;
+
+	// Layout of the records: the packed state, its fingerprint and its parent.
+	private final File file;
+	private final int stateWords;
+	private final int recordBytes;
+
+	// Stream used to append records, or null once finished, and the number
+	// of records written.
+	private DataOutputStream out;
+	private long size;
+
+	// The reader, or null while it is closed, and the records last read.
+	private RandomAccessFile reader;
+	private ByteBuffer window;
+	private long windowStart;
+	private long windowEnd;
+
+	/**
+	 * Constructs a new, empty StateFile.
+	 * 
+	 * @param file the file to store the states in.
+	 * @param stateWords the number of words in each packed state.
+	 * @throws IOException if the file cannot be created.
+	 */
+	StateFile(File file, int stateWords) throws IOException
+	{
+		this.file = file;
+		this.stateWords = stateWords;
+		recordBytes = (stateWords + 2) * 8;
+		out = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(file), BUFFER_SIZE));
+		size = 0;
+	}
+
+	/**
+	 * Appends a state to the end of the file.
+	 * 
+	 * @param state the state to add.
+	 * @param parent the index of the state it was reached from, or -1.
+	 * @throws IOException if the file cannot be written.
+	 * @throws IllegalStateException if the file has been finished.
+	 */
+	void add(PackedLevel.State state, long parent) throws IOException
+	{
+		if (out == null)
+			throw new IllegalStateException("The file has been finished.");
+		for (int word = 0; word < stateWords; word++)
+			out.writeLong(state.words[word]);
+		out.writeLong(state.fingerprint);
+		out.writeLong(parent);
+		size++;
+	}
+
+	/**
+	 * Closes the reader until the file is read again, and lets go of the
+	 * records last read.
+	 * 
+	 * @throws IOException if the reader cannot be closed.
+	 */
+	void closeReader() throws IOException
+	{
+		if (reader != null)
+			reader.close();
+		reader = null;
+		window = null;
+		windowStart = 0;
+		windowEnd = 0;
+	}
+
+	/**
+	 * Closes and deletes the file.
+	 * 
+	 * @throws IOException if the file cannot be closed.
+	 */
+	void delete() throws IOException
+	{
+		finish();
+		closeReader();
+		if (!file.delete())
+			file.deleteOnExit();
+	}
+
+	/**
+	 * Closes the stream used to add states. No more states can be added, but
+	 * the file can still be read.
+	 * 
+	 * @throws IOException if the stream cannot be closed.
+	 */
+	void finish() throws IOException
+	{
+		if (out != null)
+			out.close();
+		out = null;
+	}
+
+	/**
+	 * Gives the size of the file once all states are written.
+	 * 
+	 * @return the size of the file in bytes.
+	 */
+	long getFileSize()
+	{
+		return size * recordBytes;
+	}
+
+	/**
+	 * Reads the index of the state a stored state was reached from.
+	 * 
+	 * @param index the index of the stored state.
+	 * @return the index of its parent, or -1 if it has none.
+	 * @throws IOException if the file cannot be read.
+	 */
+	long getParent(long index) throws IOException
+	{
+		load(index);
+		return window.getLong((int) (index - windowStart) * recordBytes
+				+ (stateWords + 1) * 8);
+	}
+
+	/**
+	 * Reads a stored state.
+	 * 
+	 * @param index the index of the stored state.
+	 * @return the state.
+	 * @throws IOException if the file cannot be read.
+	 */
+	PackedLevel.State getState(long index) throws IOException
+	{
+		load(index);
+		int start = (int) (index - windowStart) * recordBytes;
+		long[] words = new long[stateWords];
+		for (int word = 0; word < stateWords; word++)
+			words[word] = window.getLong(start + word * 8);
+		return new PackedLevel.State(words, window.getLong(start + stateWords
+				* 8));
+	}
+
+	/**
+	 * Reads the part of the file starting at the given record into memory, if
+	 * the record is not already there.
+	 * 
+	 * @param index the index of the record to read.
+	 * @throws IOException if the file cannot be read.
+	 */
+	private void load(long index) throws IOException
+	{
+		if (index >= windowStart && index < windowEnd)
+			return;
+		if (out != null)
+			out.flush();
+		if (reader == null)
+			reader = new RandomAccessFile(file, "r");
+		if (window == null)
+			window = ByteBuffer.allocate(Math.max(1, WINDOW_BYTES
+					/ recordBytes) * recordBytes);
+		windowStart = index;
+		windowEnd = Math.min(index + window.capacity() / recordBytes, size);
+		window.clear();
+		window.limit((int) (windowEnd - windowStart) * recordBytes);
+		FileChannel channel = reader.getChannel();
+		long position = windowStart * recordBytes;
+		while (window.hasRemaining())
+			if (channel.read(window, position + window.position()) < 0)
+				throw new EOFException(file + " is shorter than expected.");
+	}
+
+	/**
+	 * Gives the number of states in the file.
+	 * 
+	 * @return the number of states added so far.
+	 */
+	long size()
+	{
+		return size;
+	}
+}
@@ -0,0 +1,282 @@
+package level;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * Stores every state the solver has visited. States are kept packed in flat
+ * primitive buffers, in the order they were added, and are found again using
+ * an open addressing hash table of their fingerprints. The buffers can be
+ * kept on the Java heap or off it, and the table refuses to grow past a
+ * given memory limit. The limit covers the old buffers as well as the new
+ * ones while they are being copied, since both are held at once. Any number
+ * of threads may look up states at once, as long as no states are being
+ * added at the same time.
+ * 
+ * @author Austin Tripp and Sherman Ying
+ * @version October 18, 2026
+ */
+class StateTable
+{
+	// Starting sizes of the buffers.
+	private static final int INITIAL_ENTRIES = 1024;
+	private static final int INITIAL_SLOTS = 2048;
+
+	// Layout of the states.
+	private final int stateWords;
+
+	// Memory settings.
+	private final long memoryLimit;
+	private final boolean offHeap;
+
+	// Packed states and their fingerprints, in the order they were added.
+	private LongBuffer states;
+	private LongBuffer fingerprints;
+	private int size;
+
+	// Hash table of entry numbers (plus one, so that 0 means empty).
+	private IntBuffer slots;
+	private int mask;
+
+	/**
+	 * Constructs an empty StateTable.
+	 * 
+	 * @param stateWords the number of words in each packed state.
+	 * @param memoryLimit the most bytes the table may use.
+	 * @param offHeap true to keep the table outside of the Java heap.
+	 */
+	StateTable(int stateWords, long memoryLimit, boolean offHeap)
+	{
+		this.stateWords = stateWords;
+		this.memoryLimit = memoryLimit;
+		this.offHeap = offHeap;
+		checkLimit(INITIAL_ENTRIES, INITIAL_SLOTS, 0);
+		states = allocateLongs(INITIAL_ENTRIES * stateWords);
+		fingerprints = allocateLongs(INITIAL_ENTRIES);
+		slots = allocateInts(INITIAL_SLOTS);
+		mask = INITIAL_SLOTS - 1;
+		size = 0;
+	}
+
+	/**
+	 * Adds a state to the table if it is not already there.
+	 * 
+	 * @param state the state to add.
+	 * @return true if the state was added, false if it was already visited.
+	 * @throws IllegalStateException if adding the state would go over the
+	 *             memory limit.
+	 */
+	boolean add(PackedLevel.State state)
+	{
+		int slot = find(state);
+		if (slots.get(slot) != 0)
+			return false;
+
+		// Make room for the new state.
+		if (size == fingerprints.capacity()
+				|| (size + 1) * 2 > slots.capacity()) {
+			grow();
+			slot = find(state);
+		}
+
+		// Store the state.
+		int start = size * stateWords;
+		for (int word = 0; word < stateWords; word++)
+			states.put(start + word, state.words[word]);
+		fingerprints.put(size, state.fingerprint);
+		size++;
+		slots.put(slot, size);
+		return true;
+	}
+
+	/**
+	 * Allocates a buffer of ints, on or off the heap.
+	 * 
+	 * @param count the number of ints.
+	 * @return the new buffer.
+	 */
+	private IntBuffer allocateInts(int count)
+	{
+		if (offHeap)
+			return ByteBuffer.allocateDirect(count * 4)
+					.order(ByteOrder.nativeOrder()).asIntBuffer();
+		return IntBuffer.allocate(count);
+	}
+
+	/**
+	 * Allocates a buffer of longs, on or off the heap.
+	 * 
+	 * @param count the number of longs.
+	 * @return the new buffer.
+	 */
+	private LongBuffer allocateLongs(int count)
+	{
+		if (offHeap)
+			return ByteBuffer.allocateDirect(count * 8)
+					.order(ByteOrder.nativeOrder()).asLongBuffer();
+		return LongBuffer.allocate(count);
+	}
+
+	/**
+	 * Makes sure buffers of the given sizes fit within the memory limit,
+	 * along with any old buffers still held while they are filled.
+	 * 
+	 * @param entries the number of states to hold.
+	 * @param noOfSlots the number of hash table slots.
+	 * @param oldBytes the number of bytes in old buffers still held.
+	 * @throws IllegalStateException if they do not fit.
+	 */
+	private void checkLimit(long entries, long noOfSlots, long oldBytes)
+	{
+		// A single buffer can only be indexed by an int.
+		long maxLongs = offHeap ? Integer.MAX_VALUE / 8 : Integer.MAX_VALUE;
+		long maxSlots = offHeap ? Integer.MAX_VALUE / 4 : 1 << 30;
+		if (bytesFor(entries, noOfSlots) + oldBytes > memoryLimit
+				|| entries * (stateWords + 1) > maxLongs
+				|| noOfSlots > maxSlots)
+			throw new IllegalStateException(
+					"The solver's memory limit has been reached.");
+	}
+
+	/**
+	 * Finds the number of bytes used by buffers of the given sizes.
+	 * 
+	 * @param entries the number of states held.
+	 * @param noOfSlots the number of hash table slots.
+	 * @return the number of bytes used.
+	 */
+	private long bytesFor(long entries, long noOfSlots)
+	{
+		return entries * (stateWords + 1) * 8 + noOfSlots * 4;
+	}
+
+	/**
+	 * Finds the slot holding the given state, or the empty slot where it
+	 * belongs.
+	 * 
+	 * @param state the state to look for.
+	 * @return the index of the slot.
+	 */
+	private int find(PackedLevel.State state)
+	{
+		int slot = (int) state.fingerprint & mask;
+		int entry;
+		while ((entry = slots.get(slot)) != 0) {
+			if (fingerprints.get(entry - 1) == state.fingerprint
+					&& matches(entry - 1, state.words))
+				return slot;
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Reads back a state from the table.
+	 * 
+	 * @param index the order the state was added in, starting from 0.
+	 * @return the state.
+	 */
+	PackedLevel.State get(int index)
+	{
+		long[] words = new long[stateWords];
+		int start = index * stateWords;
+		for (int word = 0; word < stateWords; word++)
+			words[word] = states.get(start + word);
+		return new PackedLevel.State(words, fingerprints.get(index));
+	}
+
+	/**
+	 * Finds where a state is stored in the table.
+	 * 
+	 * @param state the state to look for.
+	 * @return the order the state was added in, or -1 if it is not stored.
+	 */
+	int indexOf(PackedLevel.State state)
+	{
+		return slots.get(find(state)) - 1;
+	}
+
+	/**
+	 * Gives the amount of memory used by the table.
+	 * 
+	 * @return the number of bytes the table's buffers take up.
+	 */
+	long getMemoryUsage()
+	{
+		return bytesFor(fingerprints.capacity(), slots.capacity());
+	}
+
+	/**
+	 * Doubles whichever buffers are full, rehashing if needed.
+	 * 
+	 * @throws IllegalStateException if the larger buffers would go over the
+	 *             memory limit.
+	 */
+	private void grow()
+	{
+		int entries = fingerprints.capacity();
+		int noOfSlots = slots.capacity();
+		if (size == entries)
+			entries *= 2;
+		if ((size + 1) * 2 > noOfSlots)
+			noOfSlots *= 2;
+
+		// The buffers being replaced are held until they have been copied.
+		long oldBytes = bytesFor(entries != fingerprints.capacity()
+				? fingerprints.capacity() : 0, noOfSlots != slots.capacity()
+				? slots.capacity() : 0);
+		checkLimit(entries, noOfSlots, oldBytes);
+
+		// Copy the states over.
+		if (entries != fingerprints.capacity()) {
+			LongBuffer newStates = allocateLongs(entries * stateWords);
+			LongBuffer newFingerprints = allocateLongs(entries);
+			states.rewind();
+			fingerprints.rewind();
+			newStates.put(states);
+			newFingerprints.put(fingerprints);
+			states = newStates;
+			fingerprints = newFingerprints;
+		}
+
+		// Rebuild the hash table from the stored fingerprints.
+		if (noOfSlots != slots.capacity()) {
+			slots = allocateInts(noOfSlots);
+			mask = noOfSlots - 1;
+			for (int entry = 0; entry < size; entry++) {
+				int slot = (int) fingerprints.get(entry) & mask;
+				while (slots.get(slot) != 0)
+					slot = (slot + 1) & mask;
+				slots.put(slot, entry + 1);
+			}
+		}
+	}
+
+	/**
+	 * Checks whether a stored state has the given words.
+	 * 
+	 * @param index the index of the stored state.
+	 * @param words the packed words to compare to.
+	 * @return true if the stored state is equal, otherwise false.
+	 */
+	private boolean matches(int index, long[] words)
+	{
+		int start = index * stateWords;
+		for (int word = 0; word < stateWords; word++)
+			if (states.get(start + word) != words[word])
+				return false;
+		return true;
+	}
+
+	/**
+	 * Gives the number of states in the table.
+	 * 
+	 * @return the number of states added so far.
+	 */
+	int size()
+	{
+		return size;
+	}
+}
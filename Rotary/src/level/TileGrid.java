@@ -0,0 +1,261 @@
+package level;
+
+import java.util.Arrays;
+
+/**
+ * Stores the tiles of a level, each packed into an int, by cell in row-major
+ * order. The cells are split into blocks of 64, and the blocks into groups of
+ * 64. A copy of a grid shares every group and block with the grid it was
+ * copied from, and a shared block (and its group) is only copied when one of
+ * the grids changes it, so copying a level and then moving, rotating or
+ * activating costs time and memory in proportion to the number of blocks
+ * changed rather than the size of the level. Every block starts out as one
+ * shared block of 0s (empty tiles), so a mostly empty level only stores the
+ * blocks that hold tiles. Each cell also keeps a row and column, which action
+ * tiles use for the position they were made for.
+ * 
+ * @author Austin Tripp and Sherman Ying
+ * @version October 18, 2026
+ */
+class TileGrid
+{
+	// Cells in a block, and blocks in a group.
+	private static final int BLOCK_BITS = 6;
+	private static final int BLOCK_CELLS = 1 << BLOCK_BITS;
+	private static final int GROUP_BITS = 6;
+	private static final int GROUP_BLOCKS = 1 << GROUP_BITS;
+
+	// The block every block starts out as. No grid may change it.
+	private static final Block EMPTY_BLOCK = new Block(null);
+
+	// Number of cells in the grid.
+	private final int size;
+
+	// The blocks, by group. Each group and each block is marked with the grid
+	// allowed to change it. A grid starts out as its own mark and gets a new
+	// one whenever it is copied, so neither copy changes anything they share
+	// without copying it first.
+	private final Block[][] groups;
+	private final Object[] groupOwners;
+	private Object owner;
+
+	/**
+	 * Constructs a grid with every cell set to 0.
+	 * 
+	 * @param size the number of cells.
+	 */
+	TileGrid(int size)
+	{
+		this.size = size;
+		owner = this;
+		int noOfBlocks = size + BLOCK_CELLS - 1 >> BLOCK_BITS;
+		groups = new Block[noOfBlocks + GROUP_BLOCKS - 1 >> GROUP_BITS][];
+		groupOwners = new Object[groups.length];
+		Arrays.fill(groupOwners, owner);
+		for (int group = 0; group < groups.length; group++) {
+			groups[group] = new Block[Math.min(GROUP_BLOCKS, noOfBlocks
+					- (group << GROUP_BITS))];
+			Arrays.fill(groups[group], EMPTY_BLOCK);
+		}
+	}
+
+	/**
+	 * Constructs a copy of the given grid, sharing all of its blocks. The
+	 * given grid copies any block it changes from now on as well.
+	 * 
+	 * @param clone the grid to duplicate.
+	 */
+	TileGrid(TileGrid clone)
+	{
+		size = clone.size;
+		groups = clone.groups.clone();
+		groupOwners = new Object[groups.length];
+		owner = this;
+		clone.owner = new Object();
+	}
+
+	/**
+	 * Gives the block holding the given cell, copying it (and its group)
+	 * first if another grid shares it.
+	 * 
+	 * @param cell the cell to change.
+	 * @return a block this grid is allowed to change.
+	 */
+	private Block changeBlock(int cell)
+	{
+		int group = cell >>> BLOCK_BITS + GROUP_BITS;
+		if (groupOwners[group] != owner) {
+			groups[group] = groups[group].clone();
+			groupOwners[group] = owner;
+		}
+		int index = cell >>> BLOCK_BITS & GROUP_BLOCKS - 1;
+		Block block = groups[group][index];
+		if (block.owner != owner) {
+			block = new Block(block, owner);
+			groups[group][index] = block;
+		}
+		return block;
+	}
+
+	/**
+	 * Gives the packed tile at a cell.
+	 * 
+	 * @param cell the cell to look up.
+	 * @return the packed tile.
+	 */
+	int get(int cell)
+	{
+		return getBlock(cell).tiles[cell & BLOCK_CELLS - 1];
+	}
+
+	/**
+	 * Gives the block holding a cell, which may be shared.
+	 * 
+	 * @param cell the cell to look up.
+	 * @return the block holding the cell.
+	 */
+	private Block getBlock(int cell)
+	{
+		return groups[cell >>> BLOCK_BITS + GROUP_BITS][cell >>> BLOCK_BITS
+				& GROUP_BLOCKS - 1];
+	}
+
+	/**
+	 * Gives the column kept at a cell.
+	 * 
+	 * @param cell the cell to look up.
+	 * @return the column kept, or 0 if none was set.
+	 */
+	int getCol(int cell)
+	{
+		int[] positions = getBlock(cell).positions;
+		if (positions == null)
+			return 0;
+		return positions[(cell & BLOCK_CELLS - 1) << 1 | 1];
+	}
+
+	/**
+	 * Gives the row kept at a cell.
+	 * 
+	 * @param cell the cell to look up.
+	 * @return the row kept, or 0 if none was set.
+	 */
+	int getRow(int cell)
+	{
+		int[] positions = getBlock(cell).positions;
+		if (positions == null)
+			return 0;
+		return positions[(cell & BLOCK_CELLS - 1) << 1];
+	}
+
+	/**
+	 * Checks whether another grid is the same size and holds the same tiles
+	 * and positions. Blocks the grids share are not compared.
+	 * 
+	 * @param other the grid to compare to.
+	 * @return true if the grids hold the same contents, otherwise false.
+	 */
+	boolean hasSameContents(TileGrid other)
+	{
+		if (size != other.size)
+			return false;
+		for (int group = 0; group < groups.length; group++) {
+			Block[] blocks = groups[group];
+			Block[] otherBlocks = other.groups[group];
+			if (blocks == otherBlocks)
+				continue;
+			for (int block = 0; block < blocks.length; block++)
+				if (blocks[block] != otherBlocks[block]
+						&& !blocks[block].hasSameContents(otherBlocks[block]))
+					return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Changes the packed tile at a cell.
+	 * 
+	 * @param cell the cell to change.
+	 * @param tile the new packed tile.
+	 */
+	void set(int cell, int tile)
+	{
+		// Writing what is already there copies nothing, so filling in empty
+		// tiles leaves the shared empty block alone.
+		if (get(cell) != tile)
+			changeBlock(cell).tiles[cell & BLOCK_CELLS - 1] = tile;
+	}
+
+	/**
+	 * Changes the row and column kept at a cell.
+	 * 
+	 * @param cell the cell to change.
+	 * @param row the row to keep.
+	 * @param col the column to keep.
+	 */
+	void setPosition(int cell, int row, int col)
+	{
+		if (row == 0 && col == 0 && getRow(cell) == 0 && getCol(cell) == 0)
+			return;
+		Block block = changeBlock(cell);
+		if (block.positions == null)
+			block.positions = new int[BLOCK_CELLS * 2];
+		block.positions[(cell & BLOCK_CELLS - 1) << 1] = row;
+		block.positions[(cell & BLOCK_CELLS - 1) << 1 | 1] = col;
+	}
+
+	/**
+	 * The tiles of one block, and the grid allowed to change them.
+	 */
+	private static class Block
+	{
+		private final Object owner;
+		private final int[] tiles;
+
+		// The row and column kept at each cell, or null if they are all 0.
+		private int[] positions;
+
+		/**
+		 * Constructs a block with every cell set to 0.
+		 * 
+		 * @param owner the grid allowed to change the block.
+		 */
+		Block(Object owner)
+		{
+			this.owner = owner;
+			tiles = new int[BLOCK_CELLS];
+		}
+
+		/**
+		 * Constructs a copy of a block.
+		 * 
+		 * @param clone the block to duplicate.
+		 * @param owner the grid allowed to change the copy.
+		 */
+		Block(Block clone, Object owner)
+		{
+			this.owner = owner;
+			tiles = clone.tiles.clone();
+			if (clone.positions != null)
+				positions = clone.positions.clone();
+		}
+
+		/**
+		 * Checks whether another block holds the same tiles and positions.
+		 * 
+		 * @param other the block to compare to.
+		 * @return true if the blocks hold the same contents, otherwise false.
+		 */
+		boolean hasSameContents(Block other)
+		{
+			if (!Arrays.equals(tiles, other.tiles))
+				return false;
+			if (positions == null || other.positions == null) {
+				int[] kept = positions == null ? other.positions : positions;
+				return kept == null
+						|| Arrays.equals(kept, new int[BLOCK_CELLS * 2]);
+			}
+			return Arrays.equals(positions, other.positions);
+		}
+	}
+}
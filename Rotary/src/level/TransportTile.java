@@ -2,7 +2,6 @@ package level;
 
 import java.awt.Graphics;
 import java.awt.Graphics2D;
-import java.util.ArrayList;
 
 /**
  * An action tile that, when activated, transports a player to another transport
@@ -48,27 +47,7 @@ public class TransportTile extends ActionTile
 	 */
 	public void activate(Level level)
 	{
-		int width = level.getWidth();
-		int height = level.getHeight();
-		ArrayList<int[]> transporterPositions = new ArrayList<int[]>();
-		int currentIndex = -1;
-
-		// Find every transport tile and search for valid targets.
-		for (int r = 0; r < height; r++) {
-			for (int c = 0; c < width; c++) {
-				Tile t = level.tileAt(r, c);
-				if (t instanceof TransportTile) {
-					if (t.isSameColour(getTargetColour())
-							&& !(r == row && c == col))
-						transporterPositions.add(new int[] { r, c });
-					else if (r == row && c == col)
-						currentIndex = transporterPositions.size();
-				}
-			}
-		}
-		int[] target = transporterPositions.get(currentIndex
-				% transporterPositions.size());
-		level.movePlayerTo(target[0], target[1]);
+		level.activateTileAt(row, col);
 	}
 
 	/**
@@ -80,20 +59,7 @@ public class TransportTile extends ActionTile
 	 */
 	public boolean canActivate(Level level)
 	{
-		int width = level.getWidth();
-		int height = level.getHeight();
-
-		// Find any valid target.
-		for (int r = 0; r < height; r++) {
-			for (int c = 0; c < width; c++) {
-				Tile t = level.tileAt(r, c);
-				if (t instanceof TransportTile
-						&& t.isSameColour(getTargetColour())
-						&& !(r == row && c == col))
-					return true;
-			}
-		}
-		return false;
+		return level.canActivateTileAt(row, col);
 	}
 
 	/**
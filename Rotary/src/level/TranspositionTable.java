@@ -0,0 +1,199 @@
+package level;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+/**
+ * Remembers recently searched states during an iterative deepening search.
+ * The table has a fixed number of entries, decided by the memory limit, and
+ * each state has exactly one entry it can be stored in. A new state always
+ * replaces whatever was in its entry, so forgetting a state only means it may
+ * be searched again. States that were cut off are remembered too, so that an
+ * unsolvable level can be recognised once every reachable state has been
+ * searched.
+ * 
+ * @author Austin Tripp and Sherman Ying
+ * @version October 18, 2026
+ */
+class TranspositionTable
+{
+	// The memory used when no limit is given.
+	private static final long DEFAULT_LIMIT = 16L << 20;
+
+	// Layout of the entries: the fingerprint, the cost and bound the state
+	// was searched with, and the packed state.
+	private static final int HEADER_WORDS = 2;
+	private final int stateWords;
+	private final int entryWords;
+
+	// The cost stored for states that were cut off rather than searched.
+	private static final long CUT_OFF = Integer.MAX_VALUE;
+
+	// The entries, and the mask used to pick one from a fingerprint.
+	private final LongBuffer entries;
+	private final int mask;
+
+	// The last bound a cut off state was forgotten with, or -1 if none were.
+	private int forgottenBound;
+
+	/**
+	 * Constructs an empty TranspositionTable with as many entries as fit in
+	 * the memory limit.
+	 * 
+	 * @param stateWords the number of words in each packed state.
+	 * @param memoryLimit the most bytes the table may use.
+	 * @param offHeap true to keep the table outside of the Java heap.
+	 * @throws IllegalStateException if not even one entry fits in the limit.
+	 */
+	TranspositionTable(int stateWords, long memoryLimit, boolean offHeap)
+	{
+		this.stateWords = stateWords;
+		entryWords = stateWords + HEADER_WORDS;
+
+		// Use the largest power of two entries that fits.
+		long maxWords = (memoryLimit == Long.MAX_VALUE ? DEFAULT_LIMIT
+				: memoryLimit) / 8;
+		maxWords = Math.min(maxWords, offHeap ? Integer.MAX_VALUE / 8
+				: Integer.MAX_VALUE);
+		if (maxWords < entryWords)
+			throw new IllegalStateException(
+					"The solver's memory limit has been reached.");
+		int noOfEntries = Integer.highestOneBit((int) Math.min(maxWords
+				/ entryWords, 1 << 30));
+		if (offHeap)
+			entries = ByteBuffer.allocateDirect(noOfEntries * entryWords * 8)
+					.order(ByteOrder.nativeOrder()).asLongBuffer();
+		else
+			entries = LongBuffer.allocate(noOfEntries * entryWords);
+		mask = noOfEntries - 1;
+		forgottenBound = -1;
+	}
+
+	/**
+	 * Gives the amount of memory used by the table.
+	 * 
+	 * @return the number of bytes the table's entries take up.
+	 */
+	long getMemoryUsage()
+	{
+		return entries.capacity() * 8L;
+	}
+
+	/**
+	 * Checks whether every state cut off in the search with the given bound
+	 * was also searched, so that the search reached every state it ever could.
+	 * This can only be known if no cut off state was forgotten.
+	 * 
+	 * @param bound the largest total number of actions that was searched.
+	 * @return true if a larger bound would not reach any new states,
+	 *         otherwise false.
+	 */
+	boolean isClosed(int bound)
+	{
+		if (forgottenBound == bound)
+			return false;
+		for (int start = 0; start < entries.capacity(); start += entryWords)
+			if (entries.get(start + 1) == (CUT_OFF << 32 | (bound + 1)))
+				return false;
+		return true;
+	}
+
+	/**
+	 * Checks whether a state has already been searched at least as cheaply
+	 * with the same bound.
+	 * 
+	 * @param state the state to check.
+	 * @param cost the number of actions taken to reach the state.
+	 * @param bound the largest total number of actions being searched.
+	 * @return true if the state was already searched, otherwise false.
+	 */
+	boolean isSearched(PackedLevel.State state, int cost, int bound)
+	{
+		int start = ((int) state.fingerprint & mask) * entryWords;
+		if (entries.get(start) != state.fingerprint)
+			return false;
+
+		// Bounds are stored plus one, so an empty entry never matches.
+		long stored = entries.get(start + 1);
+		return (int) stored == bound + 1 && stored >>> 32 <= cost
+				&& matches(start, state.words);
+	}
+
+	/**
+	 * Checks whether a stored state has the given words.
+	 * 
+	 * @param start the index of the stored entry's first word.
+	 * @param words the packed words to compare to.
+	 * @return true if the stored state is equal, otherwise false.
+	 */
+	private boolean matches(int start, long[] words)
+	{
+		for (int word = 0; word < stateWords; word++)
+			if (entries.get(start + HEADER_WORDS + word) != words[word])
+				return false;
+		return true;
+	}
+
+	/**
+	 * Records that a state is about to be searched, replacing whatever was
+	 * stored in its entry.
+	 * 
+	 * @param state the state to search.
+	 * @param cost the number of actions taken to reach the state.
+	 * @param bound the largest total number of actions being searched.
+	 */
+	void record(PackedLevel.State state, int cost, int bound)
+	{
+		int start = ((int) state.fingerprint & mask) * entryWords;
+		replace(start, state, bound);
+		entries.put(start + 1, (long) cost << 32 | (bound + 1));
+	}
+
+	/**
+	 * Records that a state was cut off for being over the bound, unless it
+	 * was already searched with this bound.
+	 * 
+	 * @param state the state that was cut off.
+	 * @param bound the largest total number of actions being searched.
+	 */
+	void recordCutOff(PackedLevel.State state, int bound)
+	{
+		int start = ((int) state.fingerprint & mask) * entryWords;
+		if (entries.get(start) == state.fingerprint
+				&& (int) entries.get(start + 1) == bound + 1
+				&& matches(start, state.words))
+			return;
+		replace(start, state, bound);
+		entries.put(start + 1, CUT_OFF << 32 | (bound + 1));
+	}
+
+	/**
+	 * Gives the number of entries in the table.
+	 * 
+	 * @return the most states the table can hold at once.
+	 */
+	int size()
+	{
+		return mask + 1;
+	}
+
+	/**
+	 * Stores a state in an entry, noting if a different state that was cut
+	 * off with the same bound is forgotten.
+	 * 
+	 * @param start the index of the entry's first word.
+	 * @param state the state to store.
+	 * @param bound the largest total number of actions being searched.
+	 */
+	private void replace(int start, PackedLevel.State state, int bound)
+	{
+		if (entries.get(start + 1) == (CUT_OFF << 32 | (bound + 1))
+				&& (entries.get(start) != state.fingerprint || !matches(
+						start, state.words)))
+			forgottenBound = bound;
+		entries.put(start, state.fingerprint);
+		for (int word = 0; word < stateWords; word++)
+			entries.put(start + HEADER_WORDS + word, state.words[word]);
+	}
+}
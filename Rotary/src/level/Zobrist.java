@@ -0,0 +1,74 @@
+package level;
+
+/**
+ * Generates the random-looking keys used to build Zobrist fingerprints of
+ * levels. A fingerprint is the XOR of one key per cell and one key for the
+ * player, so changing a cell only needs the old key XORed out and the new key
+ * XORed in. Rather than storing a table of random numbers for every possible
+ * cell value, each key is made by scrambling the cell and its value.
+ * 
+ * @author Austin Tripp and Sherman Ying
+ * @version October 18, 2026
+ */
+final class Zobrist
+{
+	// Constants used to spread the bits of keys.
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+	private static final long PLAYER_SEED = 0x632BE59BD9B4E019L;
+	private static final long SIZE_SEED = 0x2545F4914F6CDD1DL;
+
+	/**
+	 * Zobrist keys are never instantiated.
+	 */
+	private Zobrist()
+	{
+	}
+
+	/**
+	 * Finds the key of a cell holding the given value.
+	 * 
+	 * @param cell the index of the cell.
+	 * @param value a code describing everything about the cell's contents.
+	 * @return the key for this cell and value.
+	 */
+	static long cellKey(int cell, long value)
+	{
+		return mix(value * GOLDEN_GAMMA + cell);
+	}
+
+	/**
+	 * Scrambles the bits of a number (the finalizer of SplitMix64).
+	 * 
+	 * @param z the number to scramble.
+	 * @return the scrambled number.
+	 */
+	static long mix(long z)
+	{
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Finds the key of the player standing on the given cell.
+	 * 
+	 * @param cell the index of the cell.
+	 * @return the key for the player's position.
+	 */
+	static long playerKey(int cell)
+	{
+		return mix(PLAYER_SEED + cell * GOLDEN_GAMMA);
+	}
+
+	/**
+	 * Finds the key of a level with the given dimensions.
+	 * 
+	 * @param height the number of rows in the level.
+	 * @param width the number of columns in the level.
+	 * @return the key for the level's size.
+	 */
+	static long sizeKey(int height, int width)
+	{
+		return mix(SIZE_SEED + ((long) height << 32 | width) * GOLDEN_GAMMA);
+	}
+}